@@ -11,6 +11,7 @@ plugins {
     id("ru.vyarus.animalsniffer") version "1.7.0"
     id("com.github.spotbugs") version "5.0.13"
     id("codenarc")
+    id("me.champeau.jmh") version "0.7.0"
     id("buildlogic.reproducible-archives")
 }
 
@@ -142,6 +143,10 @@ tasks.spotbugsTest {
     isEnabled = false
 }
 
+tasks.named<SpotBugsTask>("spotbugsJmh") {
+    isEnabled = false
+}
+
 val main: SourceSet by sourceSets.getting
 
 animalsniffer {
@@ -153,6 +158,24 @@ animalsniffer {
 
 val test: SourceSet by sourceSets.getting
 
+// Benchmarks of the console log pipeline, run with ./gradlew jmh
+// Pass e.g. -Pjmh.includes=GradleConsoleAnnotatorBenchmark to run a single benchmark
+jmh {
+    jmhVersion.set("1.36")
+    findProperty("jmh.includes")?.let { includes.add(it as String) }
+    // Reports the bytes allocated per console line as gc.alloc.rate.norm
+    profilers.add("gc")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+}
+
+dependencies {
+    jmh("org.jenkins-ci.main:jenkins-core:${coreBaseVersion}.${corePatchVersion}")
+    jmh("javax.servlet:javax.servlet-api:3.1.0")
+}
+
 codenarc {
     toolVersion = "1.5"
     sourceSets = listOf(test)
@@ -0,0 +1,28 @@
+package hudson.plugins.gradle;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+
+/**
+ * Discards the annotated console output, without letting the JIT eliminate the writes.
+ */
+final class BlackholeOutputStream extends OutputStream {
+
+    private final Blackhole blackhole;
+
+    BlackholeOutputStream(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void write(int b) {
+        blackhole.consume(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        blackhole.consume(b);
+        blackhole.consume(len);
+    }
+}
@@ -0,0 +1,94 @@
+package hudson.plugins.gradle;
+
+import hudson.plugins.gradle.util.MultiLiteralMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the matching of a single line by the former regular expressions of {@link BuildScanLogScanner} with the
+ * multi-literal automaton and the URL extractor replacing them, on lines up to the longest line the console
+ * annotator parses. The scores are in lines per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class BuildScanLineMatchingBenchmark {
+
+    private static final Pattern BUILD_SCAN_PATTERN = Pattern.compile("Publishing (build scan|build information)\\.\\.\\.");
+    private static final Pattern URL_PATTERN = Pattern.compile(".*(?:\\[INFO] )?(https?://.*/s/.*)");
+
+    private static final MultiLiteralMatcher BUILD_SCAN_PUBLISHING_MESSAGES = MultiLiteralMatcher.of(
+        "Publishing build scan...",
+        "Publishing build information..."
+    );
+
+    public enum LineKind {
+        PLAIN,
+        PUBLISHING_MESSAGE,
+        BUILD_SCAN_URL,
+        // a URL which is not a build scan, the worst case of the former URL pattern
+        OTHER_URL
+    }
+
+    @Param({"80", "250", "499"})
+    public int lineLength;
+
+    @Param
+    public LineKind lineKind;
+
+    private String line;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder();
+        switch (lineKind) {
+            case PUBLISHING_MESSAGE:
+                sb.append("Publishing build scan...");
+                break;
+            case BUILD_SCAN_URL:
+                sb.append("https://ge.example.com/s/bzb4vn64kx3bc ");
+                break;
+            case OTHER_URL:
+                sb.append("See https://docs.example.com/some/page/s ");
+                break;
+            default:
+                break;
+        }
+        while (sb.length() < lineLength) {
+            sb.append("lorem ipsum dolor sit amet ");
+        }
+        line = sb.substring(0, lineLength);
+    }
+
+    @Benchmark
+    public boolean publishingMessageRegex() {
+        return BUILD_SCAN_PATTERN.matcher(line).find();
+    }
+
+    @Benchmark
+    public boolean publishingMessageAutomaton() {
+        return BUILD_SCAN_PUBLISHING_MESSAGES.find(line);
+    }
+
+    @Benchmark
+    public Optional<String> buildScanUrlRegex() {
+        Matcher matcher = URL_PATTERN.matcher(line);
+        return matcher.matches() ? Optional.of(matcher.group(1)) : Optional.empty();
+    }
+
+    @Benchmark
+    public Optional<String> buildScanUrlExtractor() {
+        return BuildScanLogScanner.tryFindBuildScanUrl(line);
+    }
+}
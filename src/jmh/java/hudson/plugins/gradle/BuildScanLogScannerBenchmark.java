@@ -0,0 +1,43 @@
+package hudson.plugins.gradle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scans already decoded lines, as the {@code findBuildScans} step does. The score is in lines per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class BuildScanLogScannerBenchmark {
+
+    @Param
+    public ConsoleLog log;
+
+    private List<String> lines;
+
+    @Setup
+    public void setUp() {
+        lines = log.lines();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ConsoleLog.LINES)
+    public void scanLines(Blackhole blackhole) {
+        BuildScanLogScanner scanner = new BuildScanLogScanner(blackhole::consume);
+        for (String line : lines) {
+            scanner.scanLine(line);
+        }
+    }
+}
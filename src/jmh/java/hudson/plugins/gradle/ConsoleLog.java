@@ -0,0 +1,129 @@
+package hudson.plugins.gradle;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic console logs of {@link #LINES} lines, shaped like the output of typical Gradle and Maven builds.
+ */
+public enum ConsoleLog {
+
+    GRADLE_TASKS {
+        @Override
+        String line(int index, Random random) {
+            int module = random.nextInt(200);
+            switch (random.nextInt(8)) {
+                case 0:
+                    return "> Task :module-" + module + ":processResources NO-SOURCE";
+                case 1:
+                    return "> Task :module-" + module + ":compileJava UP-TO-DATE";
+                case 2:
+                    return ":module-" + module + ":jar FROM-CACHE";
+                case 3:
+                    return "warning: [deprecation] getFoo() in Bar has been deprecated";
+                case 4:
+                    return "Note: Some input files use unchecked or unsafe operations.";
+                default:
+                    return "> Task :module-" + module + ":compileJava";
+            }
+        }
+    },
+
+    GRADLE_TESTS {
+        @Override
+        String line(int index, Random random) {
+            String test = "com.example.module" + random.nextInt(50) + ".SomeServiceTest > handles request " + random.nextInt(1000) + "()";
+            if (random.nextInt(100) == 0) {
+                return test + " FAILED";
+            }
+            return random.nextInt(10) == 0 ? "> Task :module-" + random.nextInt(200) + ":test" : test + " PASSED";
+        }
+    },
+
+    STACK_TRACES {
+        @Override
+        String line(int index, Random random) {
+            switch (random.nextInt(40)) {
+                case 0:
+                    return "java.lang.IllegalStateException: Unexpected state " + random.nextInt(1000) + " while processing the request";
+                case 1:
+                    return "Caused by: java.io.IOException: Connection reset by peer";
+                case 2:
+                    // long lines are not parsed, but still written through
+                    return "\tat " + repeat("com.example.generated.VeryLongProxyClassName$$EnhancerByCGLIB$$", 10) + ".invoke(Unknown Source)";
+                default:
+                    return "\tat com.example.module" + random.nextInt(50) + ".SomeService.handle(SomeService.java:" + random.nextInt(500) + ")";
+            }
+        }
+    },
+
+    MAVEN {
+        @Override
+        String line(int index, Random random) {
+            String module = "module-" + random.nextInt(200);
+            switch (random.nextInt(6)) {
+                case 0:
+                    return "[INFO] --- maven-compiler-plugin:3.8.1:compile (default-compile) @ " + module + " ---";
+                case 1:
+                    return "[INFO] Building " + module + " 1.0-SNAPSHOT                                      [" + random.nextInt(200) + "/200]";
+                case 2:
+                    return "[INFO] Tests run: " + random.nextInt(100) + ", Failures: 0, Errors: 0, Skipped: 0, Time elapsed: 0.42 s";
+                case 3:
+                    return "[WARNING] Using platform encoding (UTF-8 actually) to copy filtered resources";
+                default:
+                    return "[INFO] Running com.example." + module.replace('-', '.') + ".SomeServiceTest";
+            }
+        }
+    },
+
+    BUILD_SCANS {
+        @Override
+        String line(int index, Random random) {
+            switch (index % 200) {
+                case 190:
+                    return "Publishing build scan...";
+                case 191:
+                    return "https://ge.example.com/s/" + Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+                default:
+                    return GRADLE_TASKS.line(index, random);
+            }
+        }
+    };
+
+    public static final int LINES = 100_000;
+
+    abstract String line(int index, Random random);
+
+    /**
+     * The same log for every benchmark run, ending with the build outcome.
+     */
+    List<String> lines() {
+        Random random = new Random(42);
+        List<String> lines = new ArrayList<>(LINES);
+        for (int i = 0; i < LINES - 1; i++) {
+            lines.add(line(i, random));
+        }
+        lines.add("BUILD SUCCESSFUL in 1m 42s");
+        return lines;
+    }
+
+    byte[] bytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String line : lines()) {
+            byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+            out.write(bytes, 0, bytes.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,31 @@
+package hudson.plugins.gradle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes the notes inserted before task and outcome lines. The score is in notes per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ConsoleNoteBenchmark {
+
+    @Benchmark
+    public void encodeTaskNote(Blackhole blackhole) throws IOException {
+        new GradleTaskNote().encodeTo(new BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public void encodeOutcomeNote(Blackhole blackhole) throws IOException {
+        new GradleOutcomeNote().encodeTo(new BlackholeOutputStream(blackhole));
+    }
+}
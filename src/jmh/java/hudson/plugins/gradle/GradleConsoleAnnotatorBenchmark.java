@@ -0,0 +1,67 @@
+package hudson.plugins.gradle;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds whole console logs through the annotator, in chunks the size of a typical console write.
+ * The score is in lines per second, {@code megabytes} in MB per second, and {@code gc.alloc.rate.norm} in bytes
+ * allocated per line.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class GradleConsoleAnnotatorBenchmark {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param
+    public ConsoleLog log;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        bytes = log.bytes();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Throughput {
+
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ConsoleLog.LINES)
+    public void annotate(Throughput throughput, Blackhole blackhole) throws IOException {
+        GradleConsoleAnnotator annotator = new GradleConsoleAnnotator(
+            new BlackholeOutputStream(blackhole), StandardCharsets.UTF_8, true, blackhole::consume);
+
+        for (int off = 0; off < bytes.length; off += CHUNK_SIZE) {
+            annotator.write(bytes, off, Math.min(CHUNK_SIZE, bytes.length - off));
+        }
+        annotator.forceEol();
+
+        throughput.megabytes += bytes.length / (1024.0 * 1024.0);
+    }
+}
@@ -1,26 +1,89 @@
 package hudson.plugins.gradle;
 
+import com.google.common.annotations.VisibleForTesting;
 import hudson.model.Action;
 import hudson.model.Actionable;
+import hudson.model.Run;
+import hudson.plugins.gradle.enriched.EnrichedSummaryConfig;
 import hudson.plugins.gradle.enriched.ScanDetail;
+import hudson.plugins.gradle.enriched.ScanDetailEnricher;
+import hudson.plugins.gradle.enriched.ScanDetailService;
+import hudson.plugins.gradle.enriched.ScanDetailStore;
+import jenkins.model.Jenkins;
 import org.kohsuke.stapler.export.Exported;
 import org.kohsuke.stapler.export.ExportedBean;
 
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 @ExportedBean
 public abstract class AbstractBuildScanAction implements Action {
 
+    private static final Logger LOGGER = Logger.getLogger(AbstractBuildScanAction.class.getName());
+
+    private static final long LAZY_ENRICHMENT_RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(
+        Long.getLong(AbstractBuildScanAction.class.getName() + ".lazyEnrichmentRetryDelayInSeconds", 60));
+
     // Backward compatibility for old plugins versions which created an action per-scan
     private transient String scanUrl;
 
     protected transient Actionable target;
 
-    private List<String> scanUrls = new ArrayList<>();
+    // Only written with the action, as a copy of the scans added so far, see writeReplace()
+    private List<String> scanUrls;
+
+    // Only persisted with the action when there is no scan details file, see getScanDetailsFile(). Otherwise it only
+    // holds the details read from a former build.xml, or which could not be stored, until they are moved to the file.
+    private volatile List<ScanDetail> scanDetails;
+
+    // The scans and their details in insertion order, only appended to while holding the lock of the action.
+    // The details are read the first time they are needed, see loadScanDetails().
+    private transient List<String> scanUrlList = new ArrayList<>();
+
+    private transient List<ScanDetail> scanDetailList;
+
+    // Copies of the lists above which are never modified once published, so that they can be read and persisted while
+    // scans are added from parallel branches. Taken again on the first read after an update.
+    private transient volatile List<String> scanUrlsSnapshot;
+
+    private transient volatile List<ScanDetail> scanDetailsSnapshot;
+
+    // Indexes of the lists above, so that adding a scan does not compare it with all the previous ones.
+    // Only the lists are persisted, in insertion order, and the indexes are rebuilt when loading the action.
+    private transient Set<String> scanUrlIndex = new HashSet<>();
+
+    private transient Set<String> scanDetailIndex = new HashSet<>();
+
+    // Whether details kept with the action were moved to the scan details file since the action was last saved.
+    // Only set while holding the lock of the action, the action being saved once the lock is released.
+    private transient volatile boolean scanDetailsMoved;
+
+    // In lazy mode, the build scans whose details were requested, mapped to the time they can be requested again if
+    // they are still missing then, as the lookup failed or was dropped by a full enrichment queue. Guarded by the lock
+    // of the action.
+    private transient Map<String, Long> lookupsNotBefore = new HashMap<>();
 
-    private List<ScanDetail> scanDetails = new ArrayList<>();
+    @CheckForNull
+    private transient ScanDetailService scanDetailService;
+
+    @CheckForNull
+    private transient ScanDetailEnricher scanDetailEnricher;
+
+    private transient LongSupplier clock = System::currentTimeMillis;
 
     @Override
     public String getIconFileName() {
@@ -38,30 +101,306 @@ public abstract class AbstractBuildScanAction implements Action {
     }
 
     public void addScanUrl(String scanUrl) {
-        if (!scanUrls.contains(scanUrl)) {
-            scanUrls.add(scanUrl);
+        addScanUrls(Collections.singletonList(scanUrl));
+    }
+
+    /**
+     * Adds the build scans which were not added yet, in the given order, with a single update of the action.
+     */
+    public synchronized void addScanUrls(Collection<String> newScanUrls) {
+        for (String scanUrl : newScanUrls) {
+            if (scanUrlIndex.add(scanUrl)) {
+                scanUrlList.add(scanUrl);
+                scanUrlsSnapshot = null;
+            }
         }
     }
 
+    /**
+     * Adds the details of a build scan, unless the details of a build scan with the same URL were already added.
+     */
     public void addScanDetail(ScanDetail scanDetail) {
-        if (!scanDetails.contains(scanDetail)) {
-            scanDetails.add(scanDetail);
+        synchronized (this) {
+            doAddScanDetail(scanDetail);
+        }
+        saveIfScanDetailsMoved();
+    }
+
+    private void doAddScanDetail(ScanDetail scanDetail) {
+        List<ScanDetail> current = loadScanDetails();
+        if (!scanDetailIndex.add(scanDetail.getUrl())) {
+            return;
+        }
+
+        current.add(scanDetail);
+        scanDetailsSnapshot = null;
+        lookupsNotBefore.remove(scanDetail.getUrl());
+        File file = getScanDetailsFile();
+        if (file == null) {
+            return;
+        }
+
+        try {
+            ScanDetailStore.append(file, scanDetail);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to store the details of " + scanDetail.getUrl() + " in " + file + ", keeping them in the build record", e);
+            scanDetails = append(scanDetails == null ? Collections.emptyList() : scanDetails, scanDetail);
         }
     }
 
+    // Copies the list, as it may be being persisted. Only used for the details which could not be stored.
+    private static List<ScanDetail> append(List<ScanDetail> scanDetails, ScanDetail scanDetail) {
+        List<ScanDetail> updated = new ArrayList<>(scanDetails.size() + 1);
+        updated.addAll(scanDetails);
+        updated.add(scanDetail);
+        return updated;
+    }
+
+    /**
+     * The file the details of the build scans are stored in, rather than in the XML of the action.
+     *
+     * @return {@code null} if the details are persisted with the action
+     */
+    @CheckForNull
+    protected File getScanDetailsFile() {
+        return null;
+    }
+
+    /**
+     * Reads the scan details file the first time, and moves the details kept with the action to the file.
+     * Must be called while holding the lock of the action.
+     */
+    private List<ScanDetail> loadScanDetails() {
+        if (scanDetailList != null) {
+            return scanDetailList;
+        }
+        File file = getScanDetailsFile();
+        if (file == null) {
+            scanDetailList = scanDetails == null ? new ArrayList<>() : new ArrayList<>(scanDetails);
+            return scanDetailList;
+        }
+
+        List<ScanDetail> loaded;
+        try {
+            loaded = ScanDetailStore.read(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to read the build scan details from " + file, e);
+            loaded = new ArrayList<>();
+        }
+
+        Set<String> loadedUrls = loaded.stream().map(ScanDetail::getUrl).collect(Collectors.toCollection(HashSet::new));
+        List<ScanDetail> notStored = new ArrayList<>();
+        if (scanDetails != null) {
+            for (ScanDetail scanDetail : scanDetails) {
+                if (loadedUrls.add(scanDetail.getUrl())) {
+                    try {
+                        ScanDetailStore.append(file, scanDetail);
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, "Unable to store the details of " + scanDetail.getUrl() + " in " + file, e);
+                        notStored.add(scanDetail);
+                    }
+                    loaded.add(scanDetail);
+                }
+            }
+        }
+
+        if (scanDetails != null) {
+            scanDetailsMoved = true;
+        }
+        scanDetails = notStored.isEmpty() ? null : notStored;
+        scanDetailIndex = loadedUrls;
+        scanDetailList = loaded;
+        return loaded;
+    }
+
+    private List<String> scanUrlsSnapshot() {
+        List<String> snapshot = scanUrlsSnapshot;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (scanUrlsSnapshot == null) {
+                scanUrlsSnapshot = new ArrayList<>(scanUrlList);
+            }
+            return scanUrlsSnapshot;
+        }
+    }
+
+    private List<ScanDetail> scanDetailsSnapshot() {
+        List<ScanDetail> snapshot = scanDetailsSnapshot;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (scanDetailsSnapshot == null) {
+                scanDetailsSnapshot = new ArrayList<>(loadScanDetails());
+            }
+            snapshot = scanDetailsSnapshot;
+        }
+        saveIfScanDetailsMoved();
+        return snapshot;
+    }
+
+    /**
+     * Saves the action once the details kept in the build record have been moved to the scan details file, so that
+     * they are not moved again the next time the run is loaded. Must be called without holding the lock of the action,
+     * which is taken again when it is written.
+     */
+    private void saveIfScanDetailsMoved() {
+        if (!scanDetailsMoved) {
+            return;
+        }
+        synchronized (this) {
+            if (!scanDetailsMoved) {
+                return;
+            }
+            scanDetailsMoved = false;
+        }
+        save();
+    }
+
+    /**
+     * Persists the details added after the action was attached, with the object the action belongs to.
+     */
+    protected void save() {
+        DefaultBuildScanPublishedListener.save(target);
+    }
+
     @Exported
     public List<String> getScanUrls() {
-        return Collections.unmodifiableList(scanUrls);
+        return Collections.unmodifiableList(scanUrlsSnapshot());
+    }
+
+    /**
+     * The details recorded so far, without fetching the missing ones.
+     */
+    List<ScanDetail> getStoredScanDetails() {
+        return Collections.unmodifiableList(scanDetailsSnapshot());
     }
 
+    /**
+     * In lazy mode, also starts fetching the missing details in the background, without waiting for them.
+     */
     @Exported
     public List<ScanDetail> getScanDetails() {
-        return Collections.unmodifiableList(scanDetails);
+        fetchMissingScanDetails();
+        return Collections.unmodifiableList(scanDetailsSnapshot());
+    }
+
+    /**
+     * In lazy mode only the build scan URLs are recorded during the build, and their details are fetched by the
+     * {@link ScanDetailEnricher} the first time they are requested. The build scans added later are fetched when next
+     * requested, as are the ones whose details are still missing once {@code lazyEnrichmentRetryDelayInSeconds} have
+     * elapsed.
+     */
+    private void fetchMissingScanDetails() {
+        if (!isLazyEnrichmentEnabled()) {
+            return;
+        }
+
+        List<String> missingScanUrls;
+        synchronized (this) {
+            missingScanUrls = missingScanUrls();
+            long notBefore = clock.getAsLong() + LAZY_ENRICHMENT_RETRY_DELAY_MILLIS;
+            missingScanUrls.forEach(url -> lookupsNotBefore.put(url, notBefore));
+        }
+        if (missingScanUrls.isEmpty()) {
+            return;
+        }
+
+        getScanDetailEnricher().enrichLazily(missingScanUrls, getOwnerId(), getScanDetailService(), scanDetail -> {
+            addScanDetail(scanDetail);
+            save();
+        });
+    }
+
+    /**
+     * The build scans without details which were not requested, or can be requested again.
+     */
+    private synchronized List<String> missingScanUrls() {
+        loadScanDetails();
+        long now = clock.getAsLong();
+        List<String> missingScanUrls = new ArrayList<>();
+        for (String url : scanUrlList) {
+            if (!scanDetailIndex.contains(url)) {
+                Long notBefore = lookupsNotBefore.get(url);
+                if (notBefore == null || notBefore <= now) {
+                    missingScanUrls.add(url);
+                }
+            }
+        }
+        return missingScanUrls;
+    }
+
+    private boolean isLazyEnrichmentEnabled() {
+        if (scanDetailService != null) {
+            return scanDetailService.isEnrichedSummaryEnabled() && scanDetailService.isLazyEnrichmentEnabled();
+        }
+        if (Jenkins.getInstanceOrNull() == null) {
+            return false;
+        }
+        EnrichedSummaryConfig config = EnrichedSummaryConfig.get();
+        return config.isEnrichedSummaryEnabled() && config.isLazyEnrichmentEnabled();
+    }
+
+    private ScanDetailService getScanDetailService() {
+        return scanDetailService != null ? scanDetailService : new ScanDetailService(EnrichedSummaryConfig.get());
+    }
+
+    private ScanDetailEnricher getScanDetailEnricher() {
+        return scanDetailEnricher != null ? scanDetailEnricher : ScanDetailEnricher.get();
     }
 
-    private Object readResolve() {
+    @CheckForNull
+    private String getOwnerId() {
+        return target instanceof Run ? ((Run<?, ?>) target).getExternalizableId() : null;
+    }
+
+    @VisibleForTesting
+    void setScanDetailService(ScanDetailService scanDetailService) {
+        this.scanDetailService = scanDetailService;
+    }
+
+    @VisibleForTesting
+    void setScanDetailEnricher(ScanDetailEnricher scanDetailEnricher) {
+        this.scanDetailEnricher = scanDetailEnricher;
+    }
+
+    @VisibleForTesting
+    void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Publishes the scans and details added so far to the persisted fields, right before the action is written.
+     */
+    // Not private, as XStream only calls a private writeReplace declared by the class being written
+    protected synchronized Object writeReplace() {
+        scanUrls = scanUrlsSnapshot();
+        if (getScanDetailsFile() == null && scanDetailList != null) {
+            scanDetails = scanDetailList.isEmpty() ? null : scanDetailsSnapshot();
+        }
+        return this;
+    }
+
+    // Not private, as XStream only calls a private readResolve declared by the class being read
+    protected Object readResolve() {
         if (scanUrl != null) {
-            scanUrls = Collections.singletonList(scanUrl);
+            scanUrls = new ArrayList<>(Collections.singletonList(scanUrl));
+        }
+        if (scanUrls == null) {
+            scanUrls = new ArrayList<>();
+        }
+
+        lookupsNotBefore = new HashMap<>();
+        clock = System::currentTimeMillis;
+        scanUrlList = new ArrayList<>(scanUrls);
+        scanUrlIndex = new HashSet<>(scanUrls);
+        scanDetailIndex = new HashSet<>();
+        if (scanDetails != null) {
+            for (ScanDetail scanDetail : scanDetails) {
+                scanDetailIndex.add(scanDetail.getUrl());
+            }
         }
 
         return this;
@@ -0,0 +1,125 @@
+package hudson.plugins.gradle;
+
+import com.google.common.collect.Iterators;
+import hudson.Extension;
+import hudson.cli.CLICommand;
+import hudson.model.Job;
+import hudson.model.Run;
+import jenkins.model.Jenkins;
+import org.kohsuke.args4j.Option;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Add a new command to the jenkins CLI, backfill-build-scans.
+ *
+ * This scans the logs of completed runs for build scans, and records the
+ * build scans found on the runs, as if they had been detected while the runs
+ * were building. Progress is reported for each run, followed by a summary of
+ * the throughput.
+ */
+@Extension
+public class BackfillBuildScansCommand extends CLICommand {
+
+    @Override
+    public String getName() {
+        return "backfill-build-scans";
+    }
+
+    @Override
+    public String getShortDescription() {
+        return "Find the build scans published by completed builds";
+    }
+
+    @Option(name = "--job",
+            usage = "[Optional] The full name of the job to scan. If not provided, all jobs are scanned.")
+    public String job = null;
+
+    @Option(name = "--builds",
+            usage = "[Optional] The number of most recent builds to scan per job. If not provided, all builds are scanned.")
+    public int builds = Integer.MAX_VALUE;
+
+    @Option(name = "--threads",
+            usage = "[Optional] The number of threads scanning logs. Defaults to the number of processors.")
+    public int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(name = "--rescan",
+            usage = "[Optional] Also scan the builds for which build scans have already been recorded.")
+    public boolean rescan = false;
+
+    // return values
+    private static final int OK = 0;
+    private static final int NOT_FOUND = 1;
+    private static final int FAILED = 2;
+
+    @Override
+    protected int run() throws Exception {
+        Jenkins jenkins = Jenkins.get();
+        jenkins.checkPermission(Jenkins.ADMINISTER);
+
+        List<Job> jobs;
+        if (job == null) {
+            jobs = jenkins.getAllItems(Job.class);
+        } else {
+            Job<?, ?> requestedJob = jenkins.getItemByFullName(job, Job.class);
+            if (requestedJob == null) {
+                stderr.println("Requested job not found: " + job);
+                return NOT_FOUND;
+            }
+            jobs = Collections.singletonList(requestedJob);
+        }
+
+        // iterated lazily, so that the builds of all jobs are not loaded at once
+        Iterable<Run<?, ?>> runs = () -> Iterators.concat(Iterators.transform(jobs.iterator(), this::runsToScan));
+
+        AtomicInteger done = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger scans = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+        long start = System.nanoTime();
+
+        try (BuildScanBackfill backfill = new BuildScanBackfill(Math.max(1, threads))) {
+            backfill.backfill(runs, new BuildScanBackfill.Listener() {
+                @Override
+                public void onScanned(Run<?, ?> run, List<String> scanUrls, long logBytes) {
+                    scans.addAndGet(scanUrls.size());
+                    bytes.addAndGet(logBytes);
+                    report(run, scanUrls.size() + " build scan(s)");
+                }
+
+                @Override
+                public void onFailed(Run<?, ?> run, Exception e) {
+                    failures.incrementAndGet();
+                    report(run, "failed: " + e);
+                }
+
+                private void report(Run<?, ?> run, String message) {
+                    synchronized (stdout) {
+                        stdout.printf("[%d] %s: %s%n", done.incrementAndGet(), run.getFullDisplayName(), message);
+                    }
+                }
+            });
+        }
+
+        double seconds = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)) / 1000.0;
+        double megabytes = bytes.get() / (1024.0 * 1024.0);
+        stdout.printf("Scanned %d build(s), %.1f MB in %.1f s (%.1f MB/s), found %d build scan(s)%n",
+                done.get(), megabytes, seconds, megabytes / seconds, scans.get());
+
+        if (failures.get() > 0) {
+            stderr.println(failures.get() + " build(s) could not be scanned");
+            return FAILED;
+        }
+        return OK;
+    }
+
+    private Iterator<Run<?, ?>> runsToScan(Job<?, ?> job) {
+        Iterator<? extends Run<?, ?>> builds = Iterators.limit(job.getBuilds().iterator(), this.builds);
+        return Iterators.unmodifiableIterator(
+            Iterators.filter(builds, run -> !run.isBuilding() && (rescan || run.getAction(BuildScanAction.class) == null)));
+    }
+}
@@ -1,13 +1,29 @@
 package hudson.plugins.gradle;
 
 import hudson.model.Run;
+import hudson.plugins.gradle.enriched.ScanDetail;
+import hudson.plugins.gradle.enriched.ScanDetailStore;
 import jenkins.model.RunAction2;
 import org.jenkinsci.plugins.workflow.actions.PersistentAction;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
 import org.kohsuke.stapler.export.ExportedBean;
 
+import java.io.File;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 @ExportedBean
 public class BuildScanAction extends AbstractBuildScanAction implements PersistentAction, RunAction2 {
 
+    // Only written with the action, as a copy of the flow nodes recorded so far, see writeReplace()
+    private Set<String> flowNodeIds;
+
+    // The IDs of the flow nodes with a BuildScanFlowAction, so that BuildScanColumn does not look for the action on
+    // every node of the pipeline. Added to from parallel branches. Null for the runs recorded before.
+    private transient volatile Set<String> flowNodeIdSet = ConcurrentHashMap.newKeySet();
+
     @Override
     public void onAttached(Run<?, ?> r) {
         this.target = r;
@@ -17,4 +33,71 @@ public class BuildScanAction extends AbstractBuildScanAction implements Persiste
     public void onLoad(Run<?, ?> r) {
         this.target = r;
     }
+
+    /**
+     * Records that the given flow node has a {@link BuildScanFlowAction}.
+     */
+    public void addFlowNode(FlowNode node) {
+        Set<String> ids = flowNodeIdSet;
+        // a run resumed after an upgrade keeps looking for the actions, as its former nodes were not recorded
+        if (ids != null) {
+            ids.add(node.getId());
+        }
+    }
+
+    /**
+     * Whether the given flow node of the run has a {@link BuildScanFlowAction}.
+     */
+    public boolean hasBuildScans(FlowNode node) {
+        Set<String> ids = flowNodeIdSet;
+        if (ids == null) {
+            return node.getAction(BuildScanFlowAction.class) != null;
+        }
+        return ids.contains(node.getId());
+    }
+
+    /**
+     * Also records the build scans in the {@link BuildScanIndex}, whichever way they were found.
+     */
+    @Override
+    public void addScanUrls(Collection<String> newScanUrls) {
+        super.addScanUrls(newScanUrls);
+        if (target instanceof Run) {
+            BuildScanIndex.recordScanUrls((Run<?, ?>) target, newScanUrls);
+        }
+    }
+
+    @Override
+    public void addScanDetail(ScanDetail scanDetail) {
+        super.addScanDetail(scanDetail);
+        if (target instanceof Run) {
+            BuildScanIndex.recordScanDetail((Run<?, ?>) target, scanDetail);
+        }
+    }
+
+    @Override
+    protected synchronized Object writeReplace() {
+        Set<String> ids = flowNodeIdSet;
+        flowNodeIds = ids == null ? null : new HashSet<>(ids);
+        return super.writeReplace();
+    }
+
+    @Override
+    protected Object readResolve() {
+        if (flowNodeIds != null) {
+            flowNodeIdSet = ConcurrentHashMap.newKeySet();
+            flowNodeIdSet.addAll(flowNodeIds);
+        } else {
+            flowNodeIdSet = null;
+        }
+        return super.readResolve();
+    }
+
+    /**
+     * Stored next to the {@code build.xml} of the run, which is loaded with all the builds of the job.
+     */
+    @Override
+    protected File getScanDetailsFile() {
+        return target instanceof Run ? new File(((Run<?, ?>) target).getRootDir(), ScanDetailStore.FILE_NAME) : null;
+    }
 }
@@ -0,0 +1,134 @@
+package hudson.plugins.gradle;
+
+import hudson.model.Run;
+import hudson.plugins.gradle.util.ActionUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Finds the build scans published by completed runs, for example runs which completed before the plugin was
+ * installed, and records them on the runs. Several runs are scanned concurrently, and large logs stored on disk are
+ * split into chunks scanned in parallel.
+ */
+public class BuildScanBackfill implements AutoCloseable {
+
+    public interface Listener {
+
+        void onScanned(Run<?, ?> run, List<String> scanUrls, long logBytes);
+
+        void onFailed(Run<?, ?> run, Exception e);
+    }
+
+    private final ForkJoinPool pool;
+    private final BuildScanLogChunkScanner chunkScanner;
+
+    public BuildScanBackfill(int parallelism) {
+        this(parallelism, BuildScanLogChunkScanner.DEFAULT_CHUNK_SIZE);
+    }
+
+    BuildScanBackfill(int parallelism, int chunkSize) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.chunkScanner = new BuildScanLogChunkScanner(chunkSize);
+    }
+
+    /**
+     * Finds the build scans published in the given log.
+     */
+    public List<String> scan(File logFile, Charset charset) throws IOException, InterruptedException {
+        try {
+            return pool.submit(() -> {
+                List<String> scanUrls = new ArrayList<>();
+                chunkScanner.scan(logFile, charset, new BuildScanLogScanner(scanUrls::add));
+                return scanUrls;
+            }).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Scans the logs of the given runs, and records the build scans found on them. Blocks until all runs have been
+     * scanned, the listener being notified as each run is done.
+     * <p>
+     * Only the build scans are recorded, and indexed, as fetching the details of all the build scans of the past runs
+     * would flood the enrichment queue. In lazy mode, their details are fetched once the runs are viewed.
+     * <p>
+     * The runs are iterated as earlier ones are scanned, with a bounded number of runs in flight, so that a lazily
+     * loaded sequence of runs is never held in memory at once.
+     */
+    public void backfill(Iterable<? extends Run<?, ?>> runs, Listener listener) throws InterruptedException {
+        int maxRunsInFlight = 2 * pool.getParallelism();
+        Semaphore slots = new Semaphore(maxRunsInFlight);
+        Set<ForkJoinTask<?>> tasks = ConcurrentHashMap.newKeySet();
+        try {
+            for (Run<?, ?> run : runs) {
+                slots.acquire();
+                tasks.removeIf(ForkJoinTask::isDone);
+                tasks.add(pool.submit(() -> {
+                    try {
+                        backfill(run, listener);
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+            // all runs are scanned once all slots are released
+            slots.acquire(maxRunsInFlight);
+        } finally {
+            tasks.forEach(task -> task.cancel(false));
+        }
+    }
+
+    private void backfill(Run<?, ?> run, Listener listener) {
+        try {
+            List<String> scanUrls = new ArrayList<>();
+            long logBytes = scan(run, new BuildScanLogScanner(scanUrls::add));
+
+            if (!scanUrls.isEmpty()) {
+                ActionUtil.getOrCreate(run, BuildScanAction.class, BuildScanAction::new).addScanUrls(scanUrls);
+                JobsWithBuildScans.recordBuildScan(run);
+                DefaultBuildScanPublishedListener.save(run);
+            }
+            listener.onScanned(run, scanUrls, logBytes);
+        } catch (IOException | RuntimeException e) {
+            listener.onFailed(run, e);
+        }
+    }
+
+    /**
+     * @return the size of the log
+     */
+    private long scan(Run<?, ?> run, BuildScanLogScanner scanner) throws IOException {
+        File logFile = BuildScanLogFileScanner.logFileOf(run);
+        Charset charset = run.getCharset();
+        if (BuildScanLogFileScanner.canScan(logFile, 0, charset)) {
+            chunkScanner.scan(logFile, charset, scanner);
+            return logFile.length();
+        }
+
+        // compressed or remotely stored logs are scanned sequentially
+        try (LineScanningOutputStream lines = new LineScanningOutputStream(scanner, charset)) {
+            run.getLogText().writeRawLogTo(0, lines);
+            lines.forceEol();
+            return lines.getScannedBytes();
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -1,10 +1,15 @@
 package hudson.plugins.gradle;
 
 import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.queue.Executable;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
 import org.jenkinsci.plugins.workflow.visualization.table.FlowNodeViewColumn;
 import org.jenkinsci.plugins.workflow.visualization.table.FlowNodeViewColumnDescriptor;
 import org.kohsuke.stapler.DataBoundConstructor;
 
+import java.io.IOException;
+
 public class BuildScanColumn extends FlowNodeViewColumn {
     @DataBoundConstructor
     public BuildScanColumn() {
@@ -15,6 +20,27 @@ public class BuildScanColumn extends FlowNodeViewColumn {
         return "";  // no caption needed because icon is clear enough
     }
 
+    /**
+     * Looks the node up in the flow nodes recorded on the run, rather than in the actions of every node of the graph.
+     */
+    public boolean hasBuildScans(FlowNode node) {
+        Run<?, ?> run = getRun(node);
+        if (run == null) {
+            return node.getAction(BuildScanFlowAction.class) != null;
+        }
+        BuildScanAction action = run.getAction(BuildScanAction.class);
+        return action != null && action.hasBuildScans(node);
+    }
+
+    private static Run<?, ?> getRun(FlowNode node) {
+        try {
+            Executable executable = node.getExecution().getOwner().getExecutable();
+            return executable instanceof Run ? (Run<?, ?>) executable : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     @Extension
     public static class DescriptorImpl extends FlowNodeViewColumnDescriptor {
         @Override
@@ -27,4 +53,4 @@ public class BuildScanColumn extends FlowNodeViewColumn {
             return "Build Scans";
         }
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,20 @@
 package hudson.plugins.gradle;
 
+import hudson.model.Queue;
+import hudson.model.Run;
 import org.jenkinsci.plugins.workflow.actions.FlowNodeAction;
 import org.jenkinsci.plugins.workflow.graph.FlowNode;
 import org.kohsuke.stapler.export.ExportedBean;
 
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 @ExportedBean
 public class BuildScanFlowAction extends AbstractBuildScanAction implements FlowNodeAction {
 
+    private static final Logger LOGGER = Logger.getLogger(BuildScanFlowAction.class.getName());
+
     public BuildScanFlowAction(FlowNode target) {
         this.target = target;
     }
@@ -15,4 +23,23 @@ public class BuildScanFlowAction extends AbstractBuildScanAction implements Flow
     public void onLoad(FlowNode parent) {
         this.target = parent;
     }
+
+    /**
+     * Flow nodes are not {@link hudson.model.Saveable}, their actions are persisted with the run they belong to.
+     */
+    @Override
+    protected void save() {
+        FlowNode node = (FlowNode) target;
+        if (node == null) {
+            return;
+        }
+        try {
+            Queue.Executable executable = node.getExecution().getOwner().getExecutable();
+            if (executable instanceof Run) {
+                DefaultBuildScanPublishedListener.save((Run<?, ?>) executable);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to save build scan details of " + node.getDisplayName(), e);
+        }
+    }
 }
@@ -0,0 +1,642 @@
+package hudson.plugins.gradle;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.annotations.VisibleForTesting;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.RootAction;
+import hudson.model.Run;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.plugins.gradle.enriched.ScanDetail;
+import hudson.util.AtomicFileWriter;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.annotation.CheckForNull;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Indexes the build scans of all the runs of the controller, so that they can be queried without loading the runs,
+ * e.g. the failed build scans of a project in the last day.
+ * <p>
+ * The index is kept in memory, and persisted in {@code gradle-build-scan-index.jsonl} in the Jenkins home as a log of
+ * updates, one JSON object per line, which is compacted when loaded. It is updated as build scans and their details
+ * are recorded on runs, and can be rebuilt from the runs with the {@code rebuild-build-scan-index} CLI command.
+ * The updates are applied in order on a single background thread, so that recording a build scan never waits for the
+ * index to be read or written, e.g. on the thread writing the build log.
+ * <p>
+ * Queried with the {@code query-build-scans} CLI command, or at {@code /buildScanIndex/query}.
+ */
+@Extension
+public class BuildScanIndex implements RootAction {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildScanIndex.class.getName());
+
+    static final String FILE_NAME = "gradle-build-scan-index.jsonl";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final int DEFAULT_LIMIT = 100;
+
+    private final Supplier<File> fileSupplier;
+
+    private final Executor updater;
+
+    // by build scan URL, guarded by this
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    // the build scan URLs by scan ID, guarded by this
+    private final Map<String, String> scanUrlsById = new HashMap<>();
+
+    private File file;
+
+    private int fileLines;
+
+    public BuildScanIndex() {
+        this(() -> new File(Jenkins.get().getRootDir(), FILE_NAME),
+            Executors.newSingleThreadExecutor(new NamingThreadFactory(new DaemonThreadFactory(), "Gradle build scan index")));
+    }
+
+    @VisibleForTesting
+    BuildScanIndex(Supplier<File> fileSupplier) {
+        this(fileSupplier, Runnable::run);
+    }
+
+    @VisibleForTesting
+    BuildScanIndex(Supplier<File> fileSupplier, Executor updater) {
+        this.fileSupplier = fileSupplier;
+        this.updater = updater;
+    }
+
+    public static BuildScanIndex get() {
+        return ExtensionList.lookupSingleton(BuildScanIndex.class);
+    }
+
+    @CheckForNull
+    private static BuildScanIndex getIfRunning() {
+        return Jenkins.getInstanceOrNull() == null ? null : ExtensionList.lookup(BuildScanIndex.class).get(BuildScanIndex.class);
+    }
+
+    static void recordScanUrls(Run<?, ?> run, Collection<String> scanUrls) {
+        BuildScanIndex index = getIfRunning();
+        if (index != null) {
+            List<Entry> updates = new ArrayList<>(scanUrls.size());
+            scanUrls.forEach(scanUrl -> updates.add(Entry.of(run, scanUrl)));
+            index.update(() -> updates.forEach(index::record));
+        }
+    }
+
+    static void recordScanDetail(Run<?, ?> run, ScanDetail scanDetail) {
+        BuildScanIndex index = getIfRunning();
+        if (index != null) {
+            Entry update = Entry.of(run, scanDetail.getUrl()).withDetail(scanDetail);
+            index.update(() -> index.record(update));
+        }
+    }
+
+    /**
+     * Applies the update in the background, after the ones submitted before.
+     */
+    void update(Runnable update) {
+        updater.execute(() -> {
+            try {
+                update.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Unable to update the build scan index", e);
+            }
+        });
+    }
+
+    synchronized void record(Entry entry) {
+        load();
+        Entry previous = entries.get(entry.scanUrl);
+        Entry merged = previous == null ? entry : previous.mergedWith(entry);
+        if (!merged.equals(previous)) {
+            put(merged);
+            append(merged.toJson());
+        }
+    }
+
+    synchronized void remove(String job, int build) {
+        removeIf(entry -> entry.build == build && entry.job.equals(job));
+    }
+
+    /**
+     * Removes the build scans of the given job, or of all the jobs of the given folder.
+     */
+    synchronized void removeJob(String fullName) {
+        removeIf(entry -> isInItem(entry.job, fullName));
+    }
+
+    /**
+     * Moves the build scans of the given job, or of all the jobs of the given folder, to its new name.
+     */
+    synchronized void renameJob(String oldFullName, String newFullName) {
+        load();
+        for (Map.Entry<String, Entry> indexed : entries.entrySet()) {
+            Entry entry = indexed.getValue();
+            if (isInItem(entry.job, oldFullName)) {
+                Entry renamed = entry.withJob(newFullName + entry.job.substring(oldFullName.length()));
+                indexed.setValue(renamed);
+                append(renamed.toJson());
+            }
+        }
+    }
+
+    private static boolean isInItem(String job, String itemFullName) {
+        return job.equals(itemFullName) || job.startsWith(itemFullName + "/");
+    }
+
+    private void removeIf(Predicate<Entry> filter) {
+        load();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (filter.test(entry)) {
+                it.remove();
+                scanUrlsById.remove(entry.getScanId());
+                append(MAPPER.createObjectNode().put("scanUrl", entry.scanUrl).put("deleted", true));
+            }
+        }
+    }
+
+    /**
+     * Replaces the content of the index with the build scans recorded on the given runs.
+     *
+     * @return the number of build scans indexed
+     */
+    int rebuild(Iterable<? extends Run<?, ?>> runs) throws IOException {
+        Map<String, Entry> rebuilt = new LinkedHashMap<>();
+        for (Run<?, ?> run : runs) {
+            BuildScanAction action = run.getAction(BuildScanAction.class);
+            if (action != null) {
+                for (String scanUrl : action.getScanUrls()) {
+                    rebuilt.put(scanUrl, Entry.of(run, scanUrl));
+                }
+                for (ScanDetail scanDetail : action.getStoredScanDetails()) {
+                    Entry entry = rebuilt.get(scanDetail.getUrl());
+                    if (entry != null) {
+                        rebuilt.put(scanDetail.getUrl(), entry.withDetail(scanDetail));
+                    }
+                }
+            }
+        }
+
+        synchronized (this) {
+            load();
+            entries.clear();
+            scanUrlsById.clear();
+            rebuilt.values().forEach(this::put);
+            compact();
+            return entries.size();
+        }
+    }
+
+    /**
+     * Also sees the updates submitted before, once they are applied.
+     *
+     * @return the matching build scans, most recent first
+     */
+    public List<Entry> query(Query query) {
+        CompletableFuture.runAsync(() -> { }, updater).join();
+
+        List<Entry> all;
+        synchronized (this) {
+            load();
+            if (query.scanId != null) {
+                String scanUrl = scanUrlsById.get(query.scanId);
+                all = scanUrl == null ? Collections.emptyList() : Collections.singletonList(entries.get(scanUrl));
+            } else {
+                all = new ArrayList<>(entries.values());
+            }
+        }
+        List<Entry> matching = new ArrayList<>();
+        for (Entry entry : all) {
+            if (query.test(entry)) {
+                matching.add(entry);
+            }
+        }
+        matching.sort(Comparator.comparingLong((Entry entry) -> entry.timestamp).reversed());
+        return matching.size() > query.limit ? new ArrayList<>(matching.subList(0, query.limit)) : matching;
+    }
+
+    /**
+     * Like {@link #query(Query)}, but only the build scans of the jobs the current user can see.
+     */
+    List<Entry> queryVisible(Query query) {
+        Jenkins jenkins = Jenkins.get();
+        Map<String, Boolean> visibleJobs = new HashMap<>();
+        return query(query.where(entry ->
+            visibleJobs.computeIfAbsent(entry.job, job -> jenkins.getItemByFullName(job, Job.class) != null)));
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Build Scan Index";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "buildScanIndex";
+    }
+
+    /**
+     * Serves the build scans matching the {@code scanId}, {@code project}, {@code job}, {@code outcome},
+     * {@code sinceHours} and {@code limit} parameters as JSON.
+     */
+    public void doQuery(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.READ);
+
+        Query query = new Query()
+            .scanId(req.getParameter("scanId"))
+            .project(req.getParameter("project"))
+            .job(req.getParameter("job"));
+        try {
+            query.failed(parseOutcome(req.getParameter("outcome")));
+            String sinceHours = req.getParameter("sinceHours");
+            if (sinceHours != null) {
+                query.since(System.currentTimeMillis() - (long) (Double.parseDouble(sinceHours) * 3_600_000));
+            }
+            String limit = req.getParameter("limit");
+            if (limit != null) {
+                query.limit(Integer.parseInt(limit));
+            }
+        } catch (IllegalArgumentException e) {
+            // also a malformed number, as NumberFormatException extends it
+            rsp.sendError(StaplerResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        ArrayNode scans = MAPPER.createArrayNode();
+        queryVisible(query).forEach(entry -> scans.add(entry.toJson()));
+        ObjectNode json = MAPPER.createObjectNode();
+        json.set("buildScans", scans);
+
+        rsp.setContentType("application/json;charset=UTF-8");
+        MAPPER.writeValue(rsp.getWriter(), json);
+    }
+
+    @CheckForNull
+    static Boolean parseOutcome(@CheckForNull String outcome) {
+        if (outcome == null || outcome.isEmpty()) {
+            return null;
+        }
+        switch (outcome.toLowerCase(Locale.ROOT)) {
+            case "failed":
+                return Boolean.TRUE;
+            case "succeeded":
+                return Boolean.FALSE;
+            default:
+                throw new IllegalArgumentException("Unknown outcome, expected failed or succeeded: " + outcome);
+        }
+    }
+
+    /**
+     * Reads the index the first time it is used, and compacts its file if it mostly holds superseded updates.
+     */
+    private void load() {
+        if (file != null) {
+            return;
+        }
+        file = fileSupplier.get();
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                fileLines++;
+                try {
+                    JsonNode json = MAPPER.readTree(line);
+                    String scanUrl = json.path("scanUrl").asText(null);
+                    if (scanUrl == null) {
+                        continue;
+                    }
+                    if (json.path("deleted").asBoolean()) {
+                        Entry removed = entries.remove(scanUrl);
+                        if (removed != null) {
+                            scanUrlsById.remove(removed.getScanId());
+                        }
+                    } else {
+                        put(Entry.fromJson(json));
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "Skipping malformed line of " + file, e);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to read the build scan index from " + file + ", it can be rebuilt with the rebuild-build-scan-index command", e);
+        }
+
+        if (fileLines > 2 * entries.size() + 1000) {
+            try {
+                compact();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unable to compact the build scan index " + file, e);
+            }
+        }
+    }
+
+    private void put(Entry entry) {
+        entries.put(entry.scanUrl, entry);
+        scanUrlsById.put(entry.getScanId(), entry.scanUrl);
+    }
+
+    private void compact() throws IOException {
+        AtomicFileWriter writer = new AtomicFileWriter(file.toPath(), StandardCharsets.UTF_8);
+        try {
+            for (Entry entry : entries.values()) {
+                writeLine(writer, entry.toJson());
+            }
+            writer.commit();
+        } finally {
+            writer.abort();
+        }
+        fileLines = entries.size();
+    }
+
+    private void append(ObjectNode json) {
+        try (OutputStream out = Files.newOutputStream(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write((MAPPER.writeValueAsString(json) + "\n").getBytes(StandardCharsets.UTF_8));
+            fileLines++;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to update the build scan index " + file, e);
+        }
+    }
+
+    private static void writeLine(Writer writer, ObjectNode json) throws IOException {
+        writer.write(MAPPER.writeValueAsString(json));
+        writer.write('\n');
+    }
+
+    /**
+     * A build scan, with the run which produced it and its details once they are known.
+     */
+    public static final class Entry {
+
+        private final String scanUrl;
+        private final String job;
+        private final int build;
+        private final long timestamp;
+        private final String projectName;
+        private final String buildToolType;
+        private final String buildToolVersion;
+        private final Boolean failed;
+
+        Entry(String scanUrl, String job, int build, long timestamp,
+              @CheckForNull String projectName,
+              @CheckForNull String buildToolType,
+              @CheckForNull String buildToolVersion,
+              @CheckForNull Boolean failed) {
+            this.scanUrl = scanUrl;
+            this.job = job;
+            this.build = build;
+            this.timestamp = timestamp;
+            this.projectName = projectName;
+            this.buildToolType = buildToolType;
+            this.buildToolVersion = buildToolVersion;
+            this.failed = failed;
+        }
+
+        static Entry of(Run<?, ?> run, String scanUrl) {
+            return new Entry(scanUrl, run.getParent().getFullName(), run.getNumber(), run.getStartTimeInMillis(), null, null, null, null);
+        }
+
+        Entry withDetail(ScanDetail scanDetail) {
+            return new Entry(scanUrl, job, build, timestamp,
+                scanDetail.getProjectName(),
+                scanDetail.getBuildToolType() == null ? null : scanDetail.getBuildToolType().name().toLowerCase(Locale.ROOT),
+                scanDetail.getBuildToolVersion(),
+                scanDetail.getHasFailed());
+        }
+
+        Entry withJob(String job) {
+            return new Entry(scanUrl, job, build, timestamp, projectName, buildToolType, buildToolVersion, failed);
+        }
+
+        /**
+         * Like the action of the run, keeps the first details recorded for the build scan.
+         */
+        Entry mergedWith(Entry update) {
+            boolean hasDetails = projectName != null || buildToolType != null || buildToolVersion != null || failed != null;
+            Entry details = hasDetails ? this : update;
+            return new Entry(scanUrl, update.job, update.build, update.timestamp,
+                details.projectName, details.buildToolType, details.buildToolVersion, details.failed);
+        }
+
+        public String getScanUrl() {
+            return scanUrl;
+        }
+
+        public String getScanId() {
+            int scanPath = scanUrl.lastIndexOf("/s/");
+            return scanPath < 0 ? scanUrl : scanUrl.substring(scanPath + "/s/".length());
+        }
+
+        public String getJob() {
+            return job;
+        }
+
+        public int getBuild() {
+            return build;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @CheckForNull
+        public String getProjectName() {
+            return projectName;
+        }
+
+        @CheckForNull
+        public String getBuildToolType() {
+            return buildToolType;
+        }
+
+        @CheckForNull
+        public String getBuildToolVersion() {
+            return buildToolVersion;
+        }
+
+        /**
+         * @return {@code null} if the details of the build scan are not known
+         */
+        @CheckForNull
+        public Boolean getFailed() {
+            return failed;
+        }
+
+        ObjectNode toJson() {
+            ObjectNode json = MAPPER.createObjectNode()
+                .put("scanUrl", scanUrl)
+                .put("scanId", getScanId())
+                .put("job", job)
+                .put("build", build)
+                .put("timestamp", timestamp);
+            if (projectName != null) {
+                json.put("projectName", projectName);
+            }
+            if (buildToolType != null) {
+                json.put("buildToolType", buildToolType);
+            }
+            if (buildToolVersion != null) {
+                json.put("buildToolVersion", buildToolVersion);
+            }
+            if (failed != null) {
+                json.put("failed", failed);
+            }
+            return json;
+        }
+
+        static Entry fromJson(JsonNode json) {
+            return new Entry(
+                json.path("scanUrl").asText(),
+                json.path("job").asText(),
+                json.path("build").asInt(),
+                json.path("timestamp").asLong(),
+                json.path("projectName").asText(null),
+                json.path("buildToolType").asText(null),
+                json.path("buildToolVersion").asText(null),
+                json.hasNonNull("failed") ? json.get("failed").asBoolean() : null);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Entry that = (Entry) o;
+            return build == that.build && timestamp == that.timestamp && scanUrl.equals(that.scanUrl) && job.equals(that.job)
+                && Objects.equals(projectName, that.projectName) && Objects.equals(buildToolType, that.buildToolType)
+                && Objects.equals(buildToolVersion, that.buildToolVersion) && Objects.equals(failed, that.failed);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scanUrl, job, build, timestamp, projectName, buildToolType, buildToolVersion, failed);
+        }
+    }
+
+    /**
+     * Criteria of the build scans to find, all optional.
+     */
+    public static final class Query {
+
+        private Predicate<Entry> criteria = entry -> true;
+
+        // looked up directly rather than tested against every build scan
+        private String scanId;
+
+        private int limit = DEFAULT_LIMIT;
+
+        public Query scanId(@CheckForNull String scanId) {
+            this.scanId = scanId == null || scanId.isEmpty() ? null : scanId;
+            return this;
+        }
+
+        public Query project(@CheckForNull String projectName) {
+            return projectName == null ? this : where(entry -> projectName.equalsIgnoreCase(entry.projectName));
+        }
+
+        public Query job(@CheckForNull String job) {
+            return job == null ? this : where(entry -> job.equals(entry.job));
+        }
+
+        public Query failed(@CheckForNull Boolean failed) {
+            return failed == null ? this : where(entry -> failed.equals(entry.failed));
+        }
+
+        public Query since(long timestamp) {
+            return where(entry -> entry.timestamp >= timestamp);
+        }
+
+        public Query limit(int limit) {
+            this.limit = Math.max(0, limit);
+            return this;
+        }
+
+        Query where(Predicate<Entry> criterion) {
+            criteria = criteria.and(criterion);
+            return this;
+        }
+
+        boolean test(Entry entry) {
+            return criteria.test(entry);
+        }
+    }
+
+    @Extension
+    public static final class RunDeletionListener extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            if (run.getAction(BuildScanAction.class) != null) {
+                BuildScanIndex index = get();
+                String job = run.getParent().getFullName();
+                int build = run.getNumber();
+                index.update(() -> index.remove(job, build));
+            }
+        }
+    }
+
+    /**
+     * Keeps the index in line with the jobs and folders which are deleted, renamed or moved.
+     */
+    @Extension
+    public static final class JobListener extends ItemListener {
+
+        @Override
+        public void onDeleted(Item item) {
+            BuildScanIndex index = get();
+            String fullName = item.getFullName();
+            index.update(() -> index.removeJob(fullName));
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            BuildScanIndex index = get();
+            index.update(() -> index.renameJob(oldFullName, newFullName));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package hudson.plugins.gradle;
+
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+import hudson.plugins.gradle.util.ActionUtil;
+
+/**
+ * Remembers how far the log of a run has been scanned for build scans by {@link BuildScanPublisher}, so that
+ * subsequent calls only scan the new output.
+ * <p>
+ * The checkpoint is persisted with the run. Losing it only means rescanning the log, as build scans are not
+ * recorded twice.
+ */
+public class BuildScanLogCheckpoint extends InvisibleAction {
+
+    private long offset;
+
+    private int linesSinceBuildScanPublishingMessage = Integer.MAX_VALUE;
+
+    static BuildScanLogCheckpoint of(Run<?, ?> run) {
+        return ActionUtil.getOrCreate(run, BuildScanLogCheckpoint.class, BuildScanLogCheckpoint::new);
+    }
+
+    /**
+     * The number of bytes of the raw log which have been scanned, always at the end of a line.
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    int getLinesSinceBuildScanPublishingMessage() {
+        return linesSinceBuildScanPublishingMessage;
+    }
+
+    void advance(long offset, int linesSinceBuildScanPublishingMessage) {
+        this.offset = offset;
+        this.linesSinceBuildScanPublishingMessage = linesSinceBuildScanPublishingMessage;
+    }
+}
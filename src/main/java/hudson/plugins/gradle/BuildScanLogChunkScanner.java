@@ -0,0 +1,204 @@
+package hudson.plugins.gradle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Scans a complete log file for build scans in chunks, on the fork/join pool of the calling thread.
+ * <p>
+ * Each chunk only collects the lines which are {@link BuildScanLogScanner#isRelevant(String) relevant} to the
+ * scanner, with their line numbers. These lines are then replayed in order through a single scanner, skipping the
+ * lines in between, so that the window following a build scan publishing message spans chunk boundaries.
+ */
+final class BuildScanLogChunkScanner {
+
+    static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final int READ_AHEAD_SIZE = 64 * 1024;
+
+    private final int chunkSize;
+
+    BuildScanLogChunkScanner(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * The charset must encode ASCII characters as single bytes, see
+     * {@link hudson.plugins.gradle.util.AsciiBytes#isCompatible(Charset)}.
+     */
+    void scan(File logFile, Charset charset, BuildScanLogScanner scanner) throws IOException {
+        try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+            Chunk chunk = new ChunkTask(channel, charset, 0, channel.size()).invoke();
+            chunk.replay(scanner);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ChunkTask extends RecursiveTask<Chunk> {
+
+        private final FileChannel channel;
+        private final Charset charset;
+        private final long start;
+        private final long end;
+
+        private ChunkTask(FileChannel channel, Charset charset, long start, long end) {
+            this.channel = channel;
+            this.charset = charset;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Chunk compute() {
+            if (end - start <= chunkSize) {
+                try {
+                    return scanChunk();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            long middle = start + (end - start) / 2;
+            ChunkTask second = new ChunkTask(channel, charset, middle, end);
+            second.fork();
+            Chunk first = new ChunkTask(channel, charset, start, middle).compute();
+            return first.append(second.join());
+        }
+
+        /**
+         * A line belongs to the chunk containing its first byte.
+         */
+        private Chunk scanChunk() throws IOException {
+            Chunk chunk = new Chunk(charset);
+            byte[] b = read(start, (int) (end - start));
+
+            int lineStart = 0;
+            if (start > 0 && read(start - 1, 1)[0] != '\n') {
+                lineStart = indexOfNewline(b, 0) + 1;
+                if (lineStart == 0) {
+                    // the whole chunk is part of a line started by a previous chunk
+                    return chunk;
+                }
+            }
+
+            while (lineStart < b.length) {
+                int lineEnd = indexOfNewline(b, lineStart);
+                if (lineEnd < 0) {
+                    // the last line ends in a following chunk
+                    ByteArrayOutputStream line = new ByteArrayOutputStream();
+                    line.write(b, lineStart, b.length - lineStart);
+                    readRestOfLine(line);
+                    chunk.scanLine(line.toByteArray(), 0, line.size());
+                    break;
+                }
+                chunk.scanLine(b, lineStart, lineEnd + 1 - lineStart);
+                lineStart = lineEnd + 1;
+            }
+            return chunk;
+        }
+
+        private void readRestOfLine(ByteArrayOutputStream line) throws IOException {
+            long position = end;
+            while (true) {
+                byte[] b = read(position, READ_AHEAD_SIZE);
+                int lineEnd = indexOfNewline(b, 0);
+                if (lineEnd >= 0) {
+                    line.write(b, 0, lineEnd + 1);
+                    return;
+                }
+                line.write(b, 0, b.length);
+                if (b.length < READ_AHEAD_SIZE) {
+                    return;
+                }
+                position += b.length;
+            }
+        }
+
+        /**
+         * @return the bytes read, fewer than requested at the end of the file
+         */
+        private byte[] read(long position, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            int read;
+            do {
+                read = channel.read(buffer, position + buffer.position());
+            } while (read > 0 && buffer.hasRemaining());
+            byte[] b = buffer.array();
+            return buffer.position() == length ? b : Arrays.copyOf(b, buffer.position());
+        }
+    }
+
+    private static int indexOfNewline(byte[] b, int from) {
+        for (int i = from; i < b.length; i++) {
+            if (b[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Chunk {
+
+        private final Charset charset;
+        private final List<RelevantLine> relevantLines = new ArrayList<>();
+        private long lineCount;
+
+        private Chunk(Charset charset) {
+            this.charset = charset;
+        }
+
+        private void scanLine(byte[] b, int off, int len) {
+            if (BuildScanLogScanner.mayBeRelevant(b, off, len)) {
+                // trim off CR/LF from the end
+                int end = off + len;
+                while (end > off && (b[end - 1] == '\n' || b[end - 1] == '\r')) {
+                    end--;
+                }
+                String line = charset.decode(ByteBuffer.wrap(b, off, end - off)).toString();
+                if (BuildScanLogScanner.isRelevant(line)) {
+                    relevantLines.add(new RelevantLine(lineCount, line));
+                }
+            }
+            lineCount++;
+        }
+
+        private Chunk append(Chunk next) {
+            for (RelevantLine line : next.relevantLines) {
+                relevantLines.add(new RelevantLine(lineCount + line.number, line.text));
+            }
+            lineCount += next.lineCount;
+            return this;
+        }
+
+        private void replay(BuildScanLogScanner scanner) {
+            long previous = -1;
+            for (RelevantLine line : relevantLines) {
+                scanner.skipLines(line.number - previous - 1);
+                scanner.scanLine(line.text);
+                previous = line.number;
+            }
+        }
+    }
+
+    private static final class RelevantLine {
+
+        private final long number;
+        private final String text;
+
+        private RelevantLine(long number, String text) {
+            this.number = number;
+            this.text = text;
+        }
+    }
+}
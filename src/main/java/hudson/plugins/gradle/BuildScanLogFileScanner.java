@@ -0,0 +1,114 @@
+package hudson.plugins.gradle;
+
+import hudson.model.Run;
+import hudson.plugins.gradle.util.AsciiBytes;
+import org.jenkinsci.plugins.workflow.flow.FlowExecutionOwner;
+
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Scans a log file on disk for build scans in large blocks. Lines are only decoded when their raw bytes may contain a
+ * build scan publishing message or a build scan URL, see {@link BuildScanLogScanner#isCandidate(byte[], int, int)}.
+ */
+final class BuildScanLogFileScanner {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final BuildScanLogScanner scanner;
+    private final Charset charset;
+
+    BuildScanLogFileScanner(BuildScanLogScanner scanner, Charset charset) {
+        this.scanner = scanner;
+        this.charset = charset;
+    }
+
+    /**
+     * The file holding the log of the run, if it can be found without copying the log.
+     * <p>
+     * {@link Run#getLogFile()} is deprecated for pipelines: it logs a warning on each call, and copies the log to a
+     * temporary file unless it is stored in a file. The log of the file log storage of pipelines, next to its index,
+     * is used instead, and the log of the other storages must be streamed.
+     */
+    @CheckForNull
+    static File logFileOf(Run<?, ?> run) {
+        if (run instanceof FlowExecutionOwner.Executable) {
+            File logIndex = new File(run.getRootDir(), "log-index");
+            return logIndex.isFile() ? new File(run.getRootDir(), "log") : null;
+        }
+        return run.getLogFile();
+    }
+
+    /**
+     * Whether the log can be read directly from disk, which is not the case for compressed logs, or for logs which
+     * are not on disk or are not as long as already scanned.
+     */
+    static boolean canScan(@CheckForNull File logFile, long offset, Charset charset) {
+        return logFile != null
+            && !logFile.getName().endsWith(".gz")
+            && logFile.isFile()
+            && logFile.length() >= offset
+            && AsciiBytes.isCompatible(charset);
+    }
+
+    /**
+     * Scans the complete lines from the given offset to the current end of the file.
+     *
+     * @return the offset after the last complete line
+     */
+    long scan(File logFile, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+            channel.position(offset);
+
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long bufferOffset = offset;
+            while (channel.read(buffer) > 0) {
+                int scanned = scanLines(buffer.array(), buffer.position());
+                bufferOffset += scanned;
+
+                // keep the trailing partial line for the next block
+                buffer.flip();
+                buffer.position(scanned);
+                buffer.compact();
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer);
+                }
+            }
+            return bufferOffset;
+        }
+    }
+
+    /**
+     * @return the number of bytes of the complete lines
+     */
+    private int scanLines(byte[] b, int limit) {
+        int lineStart = 0;
+        for (int i = 0; i < limit; i++) {
+            if (b[i] == '\n') {
+                scanLine(b, lineStart, i + 1 - lineStart);
+                lineStart = i + 1;
+            }
+        }
+        return lineStart;
+    }
+
+    private void scanLine(byte[] b, int off, int len) {
+        if (!scanner.isCandidate(b, off, len)) {
+            scanner.skipLine();
+            return;
+        }
+
+        // trim off CR/LF from the end
+        int end = off + len;
+        while (end > off && (b[end - 1] == '\n' || b[end - 1] == '\r')) {
+            end--;
+        }
+        scanner.scanLine(charset.decode(ByteBuffer.wrap(b, off, end - off)).toString());
+    }
+}
@@ -1,18 +1,39 @@
 package hudson.plugins.gradle;
 
+import hudson.plugins.gradle.util.AsciiBytes;
+import hudson.plugins.gradle.util.MultiLiteralMatcher;
+
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class BuildScanLogScanner {
-    private static final Pattern BUILD_SCAN_PATTERN = Pattern.compile("Publishing (build scan|build information)\\.\\.\\.");
-    private static final Pattern URL_PATTERN = Pattern.compile(".*(?:\\[INFO] )?(https?://.*/s/.*)");
+    // Printed before the build scan URL by the Gradle plugin and the Maven extension
+    private static final MultiLiteralMatcher BUILD_SCAN_PUBLISHING_MESSAGES = MultiLiteralMatcher.of(
+        "Publishing build scan...",
+        "Publishing build information..."
+    );
+    private static final String URL_SCAN_PATH = "/s/";
+    private static final byte[] URL_MARKER = AsciiBytes.of(URL_SCAN_PATH);
     private static final int LINES_TO_SCAN = 1000;
     private final BuildScanPublishedListener listener;
-    private int linesSinceBuildScanPublishingMessage = Integer.MAX_VALUE;
+    private int linesSinceBuildScanPublishingMessage;
 
     public BuildScanLogScanner(BuildScanPublishedListener listener) {
+        this(listener, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Resumes scanning a log, see {@link #getLinesSinceBuildScanPublishingMessage()}.
+     */
+    BuildScanLogScanner(BuildScanPublishedListener listener, int linesSinceBuildScanPublishingMessage) {
         this.listener = listener;
+        this.linesSinceBuildScanPublishingMessage = linesSinceBuildScanPublishingMessage;
+    }
+
+    /**
+     * The position of the scanner in the window following the last build scan publishing message.
+     */
+    int getLinesSinceBuildScanPublishingMessage() {
+        return linesSinceBuildScanPublishingMessage;
     }
 
     void scanLine(String line) {
@@ -23,14 +44,94 @@ public class BuildScanLogScanner {
                 listener.onBuildScanPublished(url);
             });
         }
-        if (BUILD_SCAN_PATTERN.matcher(line).find()) {
+        if (BUILD_SCAN_PUBLISHING_MESSAGES.find(line)) {
             linesSinceBuildScanPublishingMessage = 0;
         }
 
     }
 
-    private static Optional<String> tryFindBuildScanUrl(String text) {
-        Matcher matcher = URL_PATTERN.matcher(text);
-        return matcher.matches() ? Optional.of(matcher.group(1)) : Optional.empty();
+    /**
+     * Whether the raw line may be relevant, i.e. whether it must be decoded and passed to {@link #scanLine(String)}.
+     * Otherwise {@link #skipLine()} must be called instead.
+     */
+    boolean isCandidate(byte[] b, int len) {
+        return isCandidate(b, 0, len);
+    }
+
+    boolean isCandidate(byte[] b, int off, int len) {
+        return BUILD_SCAN_PUBLISHING_MESSAGES.find(b, off, len)
+            || linesSinceBuildScanPublishingMessage < LINES_TO_SCAN && AsciiBytes.contains(b, off, len, URL_MARKER);
+    }
+
+    void skipLine() {
+        skipLines(1);
+    }
+
+    /**
+     * Same as calling {@link #skipLine()} the given number of times.
+     */
+    void skipLines(long count) {
+        if (linesSinceBuildScanPublishingMessage < LINES_TO_SCAN) {
+            linesSinceBuildScanPublishingMessage = (int) Math.min(LINES_TO_SCAN, linesSinceBuildScanPublishingMessage + count);
+        }
+    }
+
+    /**
+     * Like {@link #isCandidate(byte[], int, int)}, but whatever the position of the scanner in the log.
+     */
+    static boolean mayBeRelevant(byte[] b, int off, int len) {
+        return BUILD_SCAN_PUBLISHING_MESSAGES.find(b, off, len) || AsciiBytes.contains(b, off, len, URL_MARKER);
+    }
+
+    /**
+     * Whether scanning the line may do more than advancing the window following the last build scan publishing
+     * message. All other lines can be {@link #skipLines(long) skipped}.
+     */
+    static boolean isRelevant(String line) {
+        return BUILD_SCAN_PUBLISHING_MESSAGES.find(line) || tryFindBuildScanUrl(line).isPresent();
+    }
+
+    /**
+     * Finds the last {@code http://} or {@code https://} URL of the line followed by a {@code /s/} path, and returns
+     * the rest of the line from there. Scans the line from the end, without backtracking.
+     */
+    static Optional<String> tryFindBuildScanUrl(String line) {
+        int scanPath = line.lastIndexOf(URL_SCAN_PATH);
+        if (scanPath < 0 || containsLineTerminator(line)) {
+            return Optional.empty();
+        }
+
+        int urlStart = line.lastIndexOf("http", scanPath);
+        while (urlStart >= 0) {
+            int schemeLength = schemeLength(line, urlStart);
+            if (schemeLength > 0 && urlStart + schemeLength <= scanPath) {
+                return Optional.of(line.substring(urlStart));
+            }
+            urlStart = line.lastIndexOf("http", urlStart - 1);
+        }
+        return Optional.empty();
+    }
+
+    private static int schemeLength(String line, int start) {
+        if (line.startsWith("http://", start)) {
+            return "http://".length();
+        }
+        if (line.startsWith("https://", start)) {
+            return "https://".length();
+        }
+        return 0;
+    }
+
+    /**
+     * A build scan URL never spans several lines.
+     */
+    private static boolean containsLineTerminator(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
     }
 }
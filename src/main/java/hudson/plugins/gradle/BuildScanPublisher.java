@@ -12,11 +12,11 @@ import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import javax.annotation.Nonnull;
-import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Stream;
 
 public class BuildScanPublisher extends Step {
     @DataBoundConstructor
@@ -37,22 +37,39 @@ public class BuildScanPublisher extends Step {
 
         @Override
         protected List<String> run() throws Exception {
-            Run run = getContext().get(Run.class);
+            Run<?, ?> run = getContext().get(Run.class);
             ScanDetailService scanDetailService = new ScanDetailService(EnrichedSummaryConfig.get());
 
-            BuildScanLogScanner scanner = new BuildScanLogScanner(new DefaultBuildScanPublishedListener(run, scanDetailService));
-            try (
-                    BufferedReader logReader = new BufferedReader(run.getLogReader());
-                    Stream<String> lines = logReader.lines()
-            ) {
-                lines.forEach(scanner::scanLine);
+            BuildScanLogCheckpoint checkpoint = BuildScanLogCheckpoint.of(run);
+            synchronized (checkpoint) {
+                BuildScanLogScanner scanner = new BuildScanLogScanner(
+                    new DefaultBuildScanPublishedListener(run, scanDetailService),
+                    checkpoint.getLinesSinceBuildScanPublishingMessage());
+                long offset = scan(run, checkpoint.getOffset(), scanner);
+                checkpoint.advance(offset, scanner.getLinesSinceBuildScanPublishingMessage());
             }
+
             BuildScanAction action = run.getAction(BuildScanAction.class);
             if (action != null) {
                 return action.getScanUrls();
             }
             return Collections.emptyList();
         }
+
+        /**
+         * @return the offset after the last complete line scanned
+         */
+        private static long scan(Run<?, ?> run, long offset, BuildScanLogScanner scanner) throws IOException {
+            File logFile = BuildScanLogFileScanner.logFileOf(run);
+            if (BuildScanLogFileScanner.canScan(logFile, offset, run.getCharset())) {
+                return new BuildScanLogFileScanner(scanner, run.getCharset()).scan(logFile, offset);
+            }
+
+            // not closed, as closing would scan the trailing partial line, which may still be written to
+            LineScanningOutputStream lines = new LineScanningOutputStream(scanner, run.getCharset());
+            run.getLogText().writeRawLogTo(offset, lines);
+            return offset + lines.getScannedBytes();
+        }
     }
 
     @Extension
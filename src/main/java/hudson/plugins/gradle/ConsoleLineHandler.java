@@ -0,0 +1,24 @@
+package hudson.plugins.gradle;
+
+/**
+ * Receives the lines of a single console stream, see {@link GradleConsoleLineExtractor}.
+ * <p>
+ * All the handlers of a stream share a single pass over its lines, and each line is decoded at most once.
+ */
+public interface ConsoleLineHandler {
+
+    /**
+     * Whether the raw line, encoded in an ASCII compatible charset and without its line terminator, must be decoded
+     * and passed to {@link #onLine(String)}. Otherwise {@link #onSkippedLine()} is called instead.
+     * <p>
+     * Handlers only interested in a few lines should match them here, to avoid decoding the whole console output.
+     */
+    default boolean isCandidate(byte[] b, int len) {
+        return true;
+    }
+
+    void onLine(String line);
+
+    default void onSkippedLine() {
+    }
+}
@@ -0,0 +1,128 @@
+package hudson.plugins.gradle;
+
+import net.sf.json.JSONObject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The cost of processing the console output of a run with the Gradle console decorators, see
+ * {@link GradleMetricsAction}.
+ * <p>
+ * The processing time of the lines is recorded in a histogram of power of two buckets, so that recording a line
+ * never allocates, and percentiles are accurate within a factor of two.
+ */
+public final class ConsoleMetrics {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder streams = new LongAdder();
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder processingNanos = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+    private final LongAdder noteEncodingNanos = new LongAdder();
+    private final LongAdder buildScans = new LongAdder();
+    private final AtomicLongArray lineProcessingNanos = new AtomicLongArray(BUCKETS);
+
+    void recordStream() {
+        streams.increment();
+    }
+
+    void recordLine(int length, long nanos) {
+        lines.increment();
+        bytes.add(length);
+        processingNanos.add(nanos);
+        lineProcessingNanos.incrementAndGet(bucketOf(nanos));
+    }
+
+    void recordDecode(long nanos) {
+        decodeNanos.add(nanos);
+    }
+
+    void recordNoteEncoding(long nanos) {
+        noteEncodingNanos.add(nanos);
+    }
+
+    void recordBuildScan() {
+        buildScans.increment();
+    }
+
+    long getLines() {
+        return lines.sum();
+    }
+
+    long getBytes() {
+        return bytes.sum();
+    }
+
+    long getBuildScans() {
+        return buildScans.sum();
+    }
+
+    void addTo(ConsoleMetrics total) {
+        total.streams.add(streams.sum());
+        total.lines.add(lines.sum());
+        total.bytes.add(bytes.sum());
+        total.processingNanos.add(processingNanos.sum());
+        total.decodeNanos.add(decodeNanos.sum());
+        total.noteEncodingNanos.add(noteEncodingNanos.sum());
+        total.buildScans.add(buildScans.sum());
+        for (int i = 0; i < BUCKETS; i++) {
+            total.lineProcessingNanos.addAndGet(i, lineProcessingNanos.get(i));
+        }
+    }
+
+    /**
+     * The upper bound of the processing time of the given share of the lines, in nanoseconds.
+     *
+     * @param percentile between 0 and 100
+     */
+    long getLineProcessingNanos(double percentile) {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += lineProcessingNanos.get(i);
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += lineProcessingNanos.get(i);
+            if (seen >= Math.max(1, rank)) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(BUCKETS - 1);
+    }
+
+    JSONObject toJson() {
+        JSONObject percentiles = new JSONObject();
+        percentiles.put("p50", getLineProcessingNanos(50));
+        percentiles.put("p90", getLineProcessingNanos(90));
+        percentiles.put("p99", getLineProcessingNanos(99));
+        percentiles.put("p999", getLineProcessingNanos(99.9));
+
+        JSONObject json = new JSONObject();
+        json.put("streams", streams.sum());
+        json.put("lines", lines.sum());
+        json.put("bytes", bytes.sum());
+        json.put("processingTimeMillis", TimeUnit.NANOSECONDS.toMillis(processingNanos.sum()));
+        json.put("decodeTimeMillis", TimeUnit.NANOSECONDS.toMillis(decodeNanos.sum()));
+        json.put("noteEncodingTimeMillis", TimeUnit.NANOSECONDS.toMillis(noteEncodingNanos.sum()));
+        json.put("buildScans", buildScans.sum());
+        json.put("lineProcessingNanos", percentiles);
+        return json;
+    }
+
+    private static int bucketOf(long nanos) {
+        return nanos <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    private static long upperBoundOf(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+}
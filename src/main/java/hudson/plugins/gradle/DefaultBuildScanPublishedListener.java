@@ -1,38 +1,75 @@
 package hudson.plugins.gradle;
 
 import hudson.model.Actionable;
+import hudson.model.Run;
+import hudson.model.Saveable;
 import hudson.plugins.gradle.enriched.ScanDetail;
+import hudson.plugins.gradle.enriched.ScanDetailEnricher;
 import hudson.plugins.gradle.enriched.ScanDetailService;
+import hudson.plugins.gradle.util.ActionUtil;
 
-import java.util.Optional;
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class DefaultBuildScanPublishedListener implements BuildScanPublishedListener {
 
+    private static final Logger LOGGER = Logger.getLogger(DefaultBuildScanPublishedListener.class.getName());
+
     private final Actionable target;
 
     private final ScanDetailService scanDetailService;
 
+    private final ScanDetail.BuildToolType buildToolType;
+
     DefaultBuildScanPublishedListener(Actionable target, ScanDetailService scanDetailService) {
+        this(target, scanDetailService, null);
+    }
+
+    /**
+     * @param buildToolType the build tool producing the console output, if known
+     */
+    DefaultBuildScanPublishedListener(Actionable target, ScanDetailService scanDetailService, @CheckForNull ScanDetail.BuildToolType buildToolType) {
         this.target = target;
         this.scanDetailService = scanDetailService;
+        this.buildToolType = buildToolType;
     }
 
     @Override
     public void onBuildScanPublished(String scanUrl) {
-        BuildScanAction action = target.getAction(BuildScanAction.class);
-
-        if (action == null) {
-            action = new BuildScanAction();
-            target.addAction(action);
-        }
+        BuildScanAction action = ActionUtil.getOrCreate(target, BuildScanAction.class, BuildScanAction::new);
 
         action.addScanUrl(scanUrl);
+        if (target instanceof Run) {
+            JobsWithBuildScans.recordBuildScan((Run<?, ?>) target);
+        }
         processScanDetail(action, scanUrl);
     }
 
     private void processScanDetail(BuildScanAction action, String scanUrl) {
-        Optional<ScanDetail> scanDetail = scanDetailService.getScanDetail(scanUrl);
-        scanDetail.ifPresent(action::addScanDetail);
+        ScanDetailEnricher.get().enrich(scanUrl, getOwnerId(target), buildToolType, scanDetailService, scanDetail -> {
+            action.addScanDetail(scanDetail);
+            save(target);
+        });
+    }
+
+    @CheckForNull
+    private static String getOwnerId(Actionable target) {
+        return target instanceof Run ? ((Run<?, ?>) target).getExternalizableId() : null;
+    }
+
+    /**
+     * Details are attached asynchronously, possibly after the build has completed, so they are persisted explicitly.
+     */
+    static void save(Actionable target) {
+        if (target instanceof Saveable) {
+            try {
+                ((Saveable) target).save();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unable to save build scan details of " + target.getDisplayName(), e);
+            }
+        }
     }
 
 }
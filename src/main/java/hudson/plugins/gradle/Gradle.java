@@ -13,6 +13,7 @@ import hudson.model.Computer;
 import hudson.model.Node;
 import hudson.model.Result;
 import hudson.plugins.gradle.enriched.EnrichedSummaryConfig;
+import hudson.plugins.gradle.enriched.ScanDetail;
 import hudson.plugins.gradle.enriched.ScanDetailService;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
@@ -312,8 +313,15 @@ public class Gradle extends Builder {
 
         try {
             ScanDetailService scanDetailService = new ScanDetailService(EnrichedSummaryConfig.get());
-            DefaultBuildScanPublishedListener buildScanListener = new DefaultBuildScanPublishedListener(build, scanDetailService);
-            GradleConsoleAnnotator gca = new GradleConsoleAnnotator(listener.getLogger(), build.getCharset(), true, buildScanListener);
+            DefaultBuildScanPublishedListener buildScanListener = new DefaultBuildScanPublishedListener(build, scanDetailService, ScanDetail.BuildToolType.GRADLE);
+            GradleConsoleAnnotator gca = new GradleConsoleAnnotator(
+                listener.getLogger(),
+                build.getCharset(),
+                true,
+                GradleTaskSectionNote.ENABLED,
+                buildScanListener,
+                GradleConsoleLineExtractor.createHandlers(build));
+            gca.setMetrics(GradleMetricsAction.forRun(build));
 
             int r;
             try {
@@ -1,11 +1,18 @@
 package hudson.plugins.gradle;
 
+import hudson.console.ConsoleNote;
 import hudson.console.LineTransformationOutputStream;
+import hudson.plugins.gradle.util.AsciiBytes;
 
+import javax.annotation.CheckForNull;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * @author ikikko
@@ -13,47 +20,197 @@ import java.nio.charset.Charset;
  */
 public class GradleConsoleAnnotator extends LineTransformationOutputStream {
 
+    private static final Logger LOGGER = Logger.getLogger(GradleConsoleAnnotator.class.getName());
+
     private static final int MAX_LINE_LENGTH = 500;
 
+    private static final byte[] TASK_PREFIX = AsciiBytes.of(":");
+    private static final byte[] RICH_TASK_PREFIX = AsciiBytes.of("> Task :");
+    private static final byte[] BUILD_SUCCESSFUL = AsciiBytes.of("BUILD SUCCESSFUL");
+    private static final byte[] BUILD_FAILED = AsciiBytes.of("BUILD FAILED");
+
     private final OutputStream out;
     private final Charset charset;
+    private final boolean asciiCompatible;
     private final boolean annotateGradleOutput;
-    private final BuildScanLogScanner buildScanLogScanner;
+    private final boolean annotateTasksAtRenderTime;
+    private final ConsoleLineHandler[] handlers;
+
+    // Whether a GradleTaskSectionNote was written since the outcome of the last Gradle build
+    private boolean inTaskSection;
+
+    @CheckForNull
+    private ConsoleMetrics metrics;
 
     public GradleConsoleAnnotator(OutputStream out,
                                   Charset charset,
                                   boolean annotateGradleOutput,
                                   BuildScanPublishedListener buildScanListener) {
+        this(out, charset, annotateGradleOutput, buildScanListener, Collections.emptyList());
+    }
+
+    /**
+     * @param handlers the handlers the lines are fanned out to, in addition to the build scan scanner,
+     *                 see {@link GradleConsoleLineExtractor}
+     */
+    public GradleConsoleAnnotator(OutputStream out,
+                                  Charset charset,
+                                  boolean annotateGradleOutput,
+                                  BuildScanPublishedListener buildScanListener,
+                                  List<? extends ConsoleLineHandler> handlers) {
+        this(out, charset, annotateGradleOutput, false, buildScanListener, handlers);
+    }
+
+    /**
+     * @param annotateTasksAtRenderTime whether the task headers are annotated at render time from a single
+     *                                  {@link GradleTaskSectionNote} rather than with a {@link GradleTaskNote} each
+     */
+    public GradleConsoleAnnotator(OutputStream out,
+                                  Charset charset,
+                                  boolean annotateGradleOutput,
+                                  boolean annotateTasksAtRenderTime,
+                                  BuildScanPublishedListener buildScanListener,
+                                  List<? extends ConsoleLineHandler> handlers) {
         this.out = out;
         this.charset = charset;
+        this.asciiCompatible = AsciiBytes.isCompatible(charset);
         this.annotateGradleOutput = annotateGradleOutput;
-        this.buildScanLogScanner = new BuildScanLogScanner(buildScanListener);
+        this.annotateTasksAtRenderTime = annotateTasksAtRenderTime;
+        this.handlers = new ConsoleLineHandler[handlers.size() + 1];
+        this.handlers[0] = new BuildScanLineHandler(new BuildScanLogScanner(scanUrl -> {
+            if (metrics != null) {
+                metrics.recordBuildScan();
+            }
+            buildScanListener.onBuildScanPublished(scanUrl);
+        }));
+        for (int i = 0; i < handlers.size(); i++) {
+            this.handlers[i + 1] = handlers.get(i);
+        }
+    }
+
+    /**
+     * Records the cost of processing the lines, see {@link GradleMetricsAction}.
+     */
+    void setMetrics(@CheckForNull ConsoleMetrics metrics) {
+        this.metrics = metrics;
     }
 
     @Override
     protected void eol(byte[] b, int len) throws IOException {
+        if (metrics == null) {
+            annotate(b, len);
+        } else {
+            long start = System.nanoTime();
+            annotate(b, len);
+            metrics.recordLine(len, System.nanoTime() - start);
+        }
+
+        out.write(b, 0, len);
+    }
+
+    private void annotate(byte[] b, int len) throws IOException {
         if (len < MAX_LINE_LENGTH) { // Don't parse too long lines
-            String line = charset.decode(ByteBuffer.wrap(b, 0, len)).toString();
+            if (asciiCompatible) {
+                annotateRaw(b, len);
+            } else {
+                annotateDecoded(decode(b, len));
+            }
+        }
+    }
 
-            // trim off CR/LF from the end
-            line = trimEOL(line);
+    /**
+     * Matches the prefixes on the raw bytes, and only decodes the lines some handler is interested in, once.
+     */
+    private void annotateRaw(byte[] b, int len) throws IOException {
+        if (annotateGradleOutput) {
+            if (AsciiBytes.startsWith(b, len, TASK_PREFIX) || AsciiBytes.startsWith(b, len, RICH_TASK_PREFIX)) {
+                annotateTaskHeader();
+            }
 
-            if (annotateGradleOutput) {
-                if (line.startsWith(":") || line.startsWith("> Task :"))
-                // put the annotation
-                {
-                    new GradleTaskNote().encodeTo(out);
-                }
+            if (AsciiBytes.startsWith(b, len, BUILD_SUCCESSFUL) || AsciiBytes.startsWith(b, len, BUILD_FAILED)) {
+                annotateOutcome();
+            }
+        }
 
-                if (line.startsWith("BUILD SUCCESSFUL") || line.startsWith("BUILD FAILED")) {
-                    new GradleOutcomeNote().encodeTo(out);
+        String line = null;
+        for (int i = 0; i < handlers.length; i++) {
+            ConsoleLineHandler handler = handlers[i];
+            try {
+                if (handler.isCandidate(b, len)) {
+                    if (line == null) {
+                        line = decode(b, len);
+                    }
+                    handler.onLine(line);
+                } else {
+                    handler.onSkippedLine();
                 }
+            } catch (RuntimeException e) {
+                disable(i, e);
+            }
+        }
+    }
+
+    private void annotateDecoded(String line) throws IOException {
+        if (annotateGradleOutput) {
+            if (line.startsWith(":") || line.startsWith("> Task :")) {
+                annotateTaskHeader();
             }
 
-            buildScanLogScanner.scanLine(line);
+            if (line.startsWith("BUILD SUCCESSFUL") || line.startsWith("BUILD FAILED")) {
+                annotateOutcome();
+            }
         }
 
-        out.write(b, 0, len);
+        for (int i = 0; i < handlers.length; i++) {
+            try {
+                handlers[i].onLine(line);
+            } catch (RuntimeException e) {
+                disable(i, e);
+            }
+        }
+    }
+
+    private void annotateTaskHeader() throws IOException {
+        if (!annotateTasksAtRenderTime) {
+            encode(new GradleTaskNote());
+        } else if (!inTaskSection) {
+            encode(new GradleTaskSectionNote());
+            inTaskSection = true;
+        }
+    }
+
+    private void annotateOutcome() throws IOException {
+        encode(new GradleOutcomeNote());
+        inTaskSection = false;
+    }
+
+    /**
+     * A failing handler must not break the console output of the build, nor the other handlers.
+     */
+    private void disable(int i, RuntimeException e) {
+        LOGGER.log(Level.WARNING, "Unable to process console output with " + handlers[i] + ", ignoring it from now on", e);
+        handlers[i] = NoOpLineHandler.INSTANCE;
+    }
+
+    private void encode(ConsoleNote<?> note) throws IOException {
+        if (metrics == null) {
+            note.encodeTo(out);
+        } else {
+            long start = System.nanoTime();
+            note.encodeTo(out);
+            metrics.recordNoteEncoding(System.nanoTime() - start);
+        }
+    }
+
+    private String decode(byte[] b, int len) {
+        long start = metrics != null ? System.nanoTime() : 0;
+        String line = charset.decode(ByteBuffer.wrap(b, 0, len)).toString();
+        if (metrics != null) {
+            metrics.recordDecode(System.nanoTime() - start);
+        }
+
+        // trim off CR/LF from the end
+        return trimEOL(line);
     }
 
     @Override
@@ -61,4 +218,41 @@ public class GradleConsoleAnnotator extends LineTransformationOutputStream {
         super.close();
         out.close();
     }
+
+    private static final class BuildScanLineHandler implements ConsoleLineHandler {
+
+        private final BuildScanLogScanner scanner;
+
+        private BuildScanLineHandler(BuildScanLogScanner scanner) {
+            this.scanner = scanner;
+        }
+
+        @Override
+        public boolean isCandidate(byte[] b, int len) {
+            return scanner.isCandidate(b, len);
+        }
+
+        @Override
+        public void onLine(String line) {
+            scanner.scanLine(line);
+        }
+
+        @Override
+        public void onSkippedLine() {
+            scanner.skipLine();
+        }
+    }
+
+    private enum NoOpLineHandler implements ConsoleLineHandler {
+        INSTANCE;
+
+        @Override
+        public boolean isCandidate(byte[] b, int len) {
+            return false;
+        }
+
+        @Override
+        public void onLine(String line) {
+        }
+    }
 }
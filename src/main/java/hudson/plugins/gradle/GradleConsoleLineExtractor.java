@@ -0,0 +1,59 @@
+package hudson.plugins.gradle;
+
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import hudson.model.Run;
+import jenkins.model.Jenkins;
+
+import javax.annotation.CheckForNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Extracts events from the console output of Gradle and Maven builds, such as deprecation warnings or test summaries.
+ * <p>
+ * The lines are fanned out by {@link GradleConsoleAnnotator} to the handlers of all extractors in a single pass,
+ * so an extractor does not need to install its own {@link hudson.console.ConsoleLogFilter}.
+ */
+public abstract class GradleConsoleLineExtractor implements ExtensionPoint {
+
+    private static final Logger LOGGER = Logger.getLogger(GradleConsoleLineExtractor.class.getName());
+
+    /**
+     * Creates the handler of a new console stream.
+     *
+     * @param run the run producing the console output, if known
+     * @return {@code null} if the extractor is not interested in the stream
+     */
+    @CheckForNull
+    public abstract ConsoleLineHandler createHandler(@CheckForNull Run<?, ?> run);
+
+    public static ExtensionList<GradleConsoleLineExtractor> all() {
+        return ExtensionList.lookup(GradleConsoleLineExtractor.class);
+    }
+
+    /**
+     * The handlers of all extractors interested in the stream. None when not running on the controller.
+     */
+    static List<ConsoleLineHandler> createHandlers(@CheckForNull Run<?, ?> run) {
+        if (Jenkins.getInstanceOrNull() == null) {
+            return Collections.emptyList();
+        }
+
+        List<ConsoleLineHandler> handlers = new ArrayList<>();
+        for (GradleConsoleLineExtractor extractor : all()) {
+            try {
+                ConsoleLineHandler handler = extractor.createHandler(run);
+                if (handler != null) {
+                    handlers.add(handler);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Unable to create the console line handler of " + extractor, e);
+            }
+        }
+        return handlers;
+    }
+}
@@ -6,15 +6,24 @@ import hudson.model.Run;
 import hudson.plugins.gradle.enriched.EnrichedSummaryConfig;
 import hudson.plugins.gradle.enriched.ScanDetailService;
 import hudson.tasks.Builder;
+import hudson.tasks.CommandInterpreter;
+import hudson.tasks.Maven;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.List;
+import java.util.Locale;
 
 public class GradleConsoleLogFilter extends ConsoleLogFilter implements Serializable {
 
     @Override
     public OutputStream decorateLogger(Run build, OutputStream logger) throws IOException, InterruptedException {
+        if (!mayPublishBuildScans(build)) {
+            // nothing to scan or annotate, the console is written as is
+            return logger;
+        }
+
         boolean usesGradleBuilder = false;
         if (build instanceof FreeStyleBuild) {
             for (Builder builder : ((FreeStyleBuild) build).getProject().getBuildersList()) {
@@ -28,6 +37,49 @@ public class GradleConsoleLogFilter extends ConsoleLogFilter implements Serializ
         ScanDetailService scanDetailService = new ScanDetailService(EnrichedSummaryConfig.get());
         DefaultBuildScanPublishedListener buildScanListener = new DefaultBuildScanPublishedListener(build, scanDetailService);
 
-        return new GradleConsoleAnnotator(logger, build.getCharset(), usesGradleBuilder, buildScanListener);
+                GradleConsoleAnnotator annotator = new GradleConsoleAnnotator(
+            logger,
+            build.getCharset(),
+            usesGradleBuilder,
+            GradleTaskSectionNote.ENABLED,
+            buildScanListener,
+            GradleConsoleLineExtractor.createHandlers(build));
+        annotator.setMetrics(GradleMetricsAction.forRun(build));
+        return annotator;
+    }
+
+    /**
+     * Whether the console of the run is worth scanning. Jobs which have produced a build scan always are. Otherwise,
+     * freestyle builds are if one of their build steps may invoke Gradle or Maven. The steps wrapped in other runs,
+     * e.g. pipelines, are not known up front, so these are unless their job's last builds produced no build scan.
+     */
+    static boolean mayPublishBuildScans(Run<?, ?> build) {
+        if (build instanceof FreeStyleBuild && mayRunGradleOrMaven(((FreeStyleBuild) build).getProject().getBuildersList())) {
+            return true;
+        }
+        if (JobsWithBuildScans.hasProducedBuildScan(build.getParent())) {
+            return true;
+        }
+        return !(build instanceof FreeStyleBuild) && !JobsWithBuildScans.hasHistoryWithoutBuildScans(build.getParent());
+    }
+
+    /**
+     * Whether any of the build steps may invoke Gradle or Maven. Shell and batch steps may only do so if their
+     * command mentions them, e.g. {@code ./gradlew build} or {@code mvn verify}. Other build steps are assumed to.
+     */
+    static boolean mayRunGradleOrMaven(List<Builder> builders) {
+        for (Builder builder : builders) {
+            if (builder instanceof Gradle || builder instanceof Maven) {
+                return true;
+            }
+            if (!(builder instanceof CommandInterpreter)) {
+                return true;
+            }
+            String command = ((CommandInterpreter) builder).getCommand().toLowerCase(Locale.ROOT);
+            if (command.contains("gradle") || command.contains("mvn") || command.contains("maven")) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,108 @@
+package hudson.plugins.gradle;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.RootAction;
+import hudson.model.Run;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exposes the cost of the Gradle console decorators at {@code /gradle/metrics}, as JSON, so that operators can see
+ * the share of the controller CPU spent by the plugin on the console output.
+ * <p>
+ * The instrumentation is opt-in, with the {@code hudson.plugins.gradle.GradleMetricsAction.enabled} system property,
+ * and only the last runs are kept.
+ */
+@Extension
+public class GradleMetricsAction implements RootAction {
+
+    /** Non-private for use in tests. */
+    static boolean ENABLED = Boolean.getBoolean(GradleMetricsAction.class.getName() + ".enabled");
+
+    private static final int MAX_RUNS = Integer.getInteger(GradleMetricsAction.class.getName() + ".maxRuns", 100);
+
+    private final Map<String, ConsoleMetrics> runs = new LinkedHashMap<String, ConsoleMetrics>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ConsoleMetrics> eldest) {
+            return size() > MAX_RUNS;
+        }
+    };
+
+    public static GradleMetricsAction get() {
+        return ExtensionList.lookupSingleton(GradleMetricsAction.class);
+    }
+
+    /**
+     * The metrics of the console output of the run, to record a new stream to.
+     *
+     * @return {@code null} if the instrumentation is disabled
+     */
+    @CheckForNull
+    static ConsoleMetrics forRun(@CheckForNull Run<?, ?> run) {
+        if (!ENABLED || run == null || Jenkins.getInstanceOrNull() == null) {
+            return null;
+        }
+        ConsoleMetrics metrics = get().getOrCreate(run.getExternalizableId());
+        metrics.recordStream();
+        return metrics;
+    }
+
+    private synchronized ConsoleMetrics getOrCreate(String runId) {
+        return runs.computeIfAbsent(runId, id -> new ConsoleMetrics());
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Gradle";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "gradle";
+    }
+
+    public void doMetrics(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().write(toJson().toString(2));
+    }
+
+    JSONObject toJson() {
+        List<Map.Entry<String, ConsoleMetrics>> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(runs.entrySet());
+        }
+
+        ConsoleMetrics total = new ConsoleMetrics();
+        JSONArray perRun = new JSONArray();
+        for (Map.Entry<String, ConsoleMetrics> entry : entries) {
+            entry.getValue().addTo(total);
+            JSONObject json = entry.getValue().toJson();
+            json.put("run", entry.getKey());
+            perRun.add(json);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("enabled", ENABLED);
+        json.put("total", total.toJson());
+        json.put("runs", perRun);
+        return json;
+    }
+}
@@ -1,27 +1,67 @@
 package hudson.plugins.gradle;
 
+import hudson.model.Run;
 import org.jenkinsci.plugins.workflow.log.TaskListenerDecorator;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class GradleTaskListenerDecorator extends TaskListenerDecorator {
 
-    private final List<String> buildScans = new ArrayList<>();
+    // The default one of the former versions, so that the decorators of the builds resumed after an upgrade still load
+    private static final long serialVersionUID = 3722180158560962251L;
+
+    // written by the log thread, read once the body of withGradle completes
+    private final List<String> buildScans = new CopyOnWriteArrayList<>();
+
+    // Null for the decorators created without a run, or by former versions
+    @CheckForNull
+    private final String runId;
+
+    public GradleTaskListenerDecorator() {
+        this(null);
+    }
+
+    /**
+     * @param run the run passed to the {@link GradleConsoleLineExtractor}s
+     */
+    public GradleTaskListenerDecorator(@CheckForNull Run<?, ?> run) {
+        this.runId = run != null ? run.getExternalizableId() : null;
+    }
 
     @Nonnull
     @Override
     public OutputStream decorate(@Nonnull OutputStream logger) throws IOException, InterruptedException {
-        return new GradleConsoleAnnotator(
+        Run<?, ?> run = getRun();
+        GradleConsoleAnnotator annotator = new GradleConsoleAnnotator(
             logger,
             StandardCharsets.UTF_8,
             true,
-            buildScans::add
+            GradleTaskSectionNote.ENABLED,
+            buildScans::add,
+            GradleConsoleLineExtractor.createHandlers(run)
         );
+        annotator.setMetrics(GradleMetricsAction.forRun(run));
+        return annotator;
+    }
+
+    @CheckForNull
+    private Run<?, ?> getRun() {
+        if (runId == null) {
+            return null;
+        }
+        try {
+            return Run.fromExternalizableId(runId);
+        } catch (RuntimeException e) {
+            // not running on the controller
+            return null;
+        }
     }
 
     public List<String> getBuildScans() {
@@ -30,6 +30,15 @@ public final class GradleTaskNote extends ConsoleNote {
         if (!ENABLED)
             return null;
 
+        addMarkup(text);
+        return null;
+    }
+
+    /**
+     * Marks up the task and its progress status, if the line is a task header.
+     * Shared with {@link GradleTaskSectionNote}, which annotates the task headers at render time.
+     */
+    static void addMarkup(MarkupText text) {
         int prefixLength = 1;
         MarkupText.SubText t = text.findToken(TASK_PATTERN_1);
         if (t == null) {
@@ -37,7 +46,7 @@ public final class GradleTaskNote extends ConsoleNote {
             prefixLength = 8;
         }
         if (t == null) {
-            return null;
+            return;
         }
 
         String task = t.group(1);
@@ -54,8 +63,6 @@ public final class GradleTaskNote extends ConsoleNote {
                     text.length(), "<span class=gradle-task-progress-status>",
                     "</span>");
         }
-
-        return null;
     }
 
     @Extension
@@ -0,0 +1,122 @@
+package hudson.plugins.gradle;
+
+import hudson.model.Action;
+import hudson.model.Run;
+import hudson.plugins.gradle.GradleTaskTimelineAction.TaskOutcome;
+import hudson.plugins.gradle.util.ActionUtil;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * The number of Gradle tasks of a run per outcome, recorded along with its {@link GradleTaskTimelineAction}.
+ * <p>
+ * Unlike the timeline, the counts are small enough to be loaded for every build of a job, see
+ * {@link GradleTaskOutcomesTrendAction}.
+ */
+@ExportedBean
+public class GradleTaskOutcomesAction implements Action {
+
+    private int executed;
+
+    private int upToDate;
+
+    private int fromCache;
+
+    private int noSource;
+
+    private int skipped;
+
+    private int failed;
+
+    static GradleTaskOutcomesAction of(Run<?, ?> run) {
+        return ActionUtil.getOrCreate(run, GradleTaskOutcomesAction.class, GradleTaskOutcomesAction::new);
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Gradle Task Outcomes";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "gradleTaskOutcomes";
+    }
+
+    synchronized void increment(TaskOutcome outcome) {
+        switch (outcome) {
+            case EXECUTED:
+                executed++;
+                break;
+            case UP_TO_DATE:
+                upToDate++;
+                break;
+            case FROM_CACHE:
+                fromCache++;
+                break;
+            case NO_SOURCE:
+                noSource++;
+                break;
+            case SKIPPED:
+                skipped++;
+                break;
+            case FAILED:
+                failed++;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown outcome " + outcome);
+        }
+    }
+
+    @Exported
+    public synchronized int getExecuted() {
+        return executed;
+    }
+
+    @Exported
+    public synchronized int getUpToDate() {
+        return upToDate;
+    }
+
+    @Exported
+    public synchronized int getFromCache() {
+        return fromCache;
+    }
+
+    @Exported
+    public synchronized int getNoSource() {
+        return noSource;
+    }
+
+    @Exported
+    public synchronized int getSkipped() {
+        return skipped;
+    }
+
+    @Exported
+    public synchronized int getFailed() {
+        return failed;
+    }
+
+    @Exported
+    public synchronized int getTotal() {
+        return executed + upToDate + fromCache + noSource + skipped + failed;
+    }
+
+    /**
+     * The share of the cacheable work which was loaded from the build cache: tasks taken from the cache among the
+     * tasks taken from the cache or actually run. Tasks which were up-to-date, had no source or were skipped did not
+     * need the cache.
+     *
+     * @return a percentage, or {@code -1} if no task needed to run
+     */
+    @Exported
+    public synchronized int getCacheHitRate() {
+        int cacheable = fromCache + executed + failed;
+        return cacheable == 0 ? -1 : Math.round(100f * fromCache / cacheable);
+    }
+}
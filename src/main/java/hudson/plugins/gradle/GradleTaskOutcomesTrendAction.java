@@ -0,0 +1,134 @@
+package hudson.plugins.gradle;
+
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.util.ChartUtil;
+import hudson.util.DataSetBuilder;
+import hudson.util.Graph;
+import jenkins.model.TransientActionFactory;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.CategoryAxis;
+import org.jfree.chart.axis.CategoryLabelPositions;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PlotOrientation;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.annotation.Nonnull;
+import java.awt.Color;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Rolls the {@link GradleTaskOutcomesAction}s of the last builds of a job up into a trend of the build cache hit
+ * rate and of the number of tasks actually executed.
+ */
+public class GradleTaskOutcomesTrendAction implements Action {
+
+    private static final int MAX_BUILDS = Integer.getInteger(GradleTaskOutcomesTrendAction.class.getName() + ".maxBuilds", 30);
+
+    private final Job<?, ?> job;
+
+    GradleTaskOutcomesTrendAction(Job<?, ?> job) {
+        this.job = job;
+    }
+
+    public Job<?, ?> getJob() {
+        return job;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Gradle Task Outcomes Trend";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "gradleTaskOutcomesTrend";
+    }
+
+    /**
+     * Whether any of the last builds ran Gradle tasks, to show the trend on the job page.
+     */
+    public boolean isTrendAvailable() {
+        for (Run<?, ?> run : job.getBuilds().limit(MAX_BUILDS)) {
+            GradleTaskOutcomesAction outcomes = run.getAction(GradleTaskOutcomesAction.class);
+            if (outcomes != null && outcomes.getTotal() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void doGraph(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Run<?, ?> lastBuild = job.getLastBuild();
+        if (lastBuild == null) {
+            rsp.sendError(StaplerResponse.SC_NOT_FOUND);
+            return;
+        }
+        new TrendGraph(lastBuild.getTimestamp().getTimeInMillis()).doPng(req, rsp);
+    }
+
+    private final class TrendGraph extends Graph {
+
+        private TrendGraph(long timestamp) {
+            super(timestamp, 500, 200);
+        }
+
+        @Override
+        protected JFreeChart createGraph() {
+            DataSetBuilder<String, ChartUtil.NumberOnlyBuildLabel> dataSet = new DataSetBuilder<>();
+            for (Run<?, ?> run : job.getBuilds().limit(MAX_BUILDS)) {
+                GradleTaskOutcomesAction outcomes = run.getAction(GradleTaskOutcomesAction.class);
+                if (outcomes != null && outcomes.getCacheHitRate() >= 0) {
+                    ChartUtil.NumberOnlyBuildLabel label = new ChartUtil.NumberOnlyBuildLabel(run);
+                    dataSet.add(outcomes.getCacheHitRate(), "Cache hit rate (%)", label);
+                    dataSet.add(Math.min(100, 100 * outcomes.getExecuted() / Math.max(1, outcomes.getTotal())), "Executed tasks (%)", label);
+                }
+            }
+
+            JFreeChart chart = ChartFactory.createLineChart(
+                null, null, "%", dataSet.build(), PlotOrientation.VERTICAL, true, true, false);
+            chart.setBackgroundPaint(Color.WHITE);
+
+            CategoryPlot plot = chart.getCategoryPlot();
+            plot.setBackgroundPaint(Color.WHITE);
+            plot.setRangeGridlinePaint(Color.LIGHT_GRAY);
+
+            CategoryAxis domainAxis = plot.getDomainAxis();
+            domainAxis.setCategoryLabelPositions(CategoryLabelPositions.UP_90);
+            domainAxis.setLowerMargin(0.0);
+            domainAxis.setUpperMargin(0.0);
+
+            NumberAxis rangeAxis = (NumberAxis) plot.getRangeAxis();
+            rangeAxis.setRange(0, 100);
+            rangeAxis.setStandardTickUnits(NumberAxis.createIntegerTickUnits());
+            return chart;
+        }
+    }
+
+    @Extension
+    public static final class Factory extends TransientActionFactory<Job> {
+
+        @Override
+        public Class<Job> type() {
+            return Job.class;
+        }
+
+        @Nonnull
+        @Override
+        public Collection<? extends Action> createFor(@Nonnull Job target) {
+            return Collections.singletonList(new GradleTaskOutcomesTrendAction(target));
+        }
+    }
+}
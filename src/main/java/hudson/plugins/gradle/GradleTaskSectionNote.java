@@ -0,0 +1,59 @@
+package hudson.plugins.gradle;
+
+import hudson.Extension;
+import hudson.MarkupText;
+import hudson.console.ConsoleAnnotationDescriptor;
+import hudson.console.ConsoleAnnotator;
+import hudson.console.ConsoleNote;
+
+/**
+ * Marks the start of the task headers of a Gradle build, which are then annotated when the console is rendered,
+ * instead of embedding a {@link GradleTaskNote} in the log for each of them. This keeps the log of builds with many
+ * thousands of tasks compact and cheap to write.
+ * <p>
+ * The note is written before the first task header of each Gradle build, and the lines are annotated until the
+ * outcome of the build, so that the lines of other steps looking like task headers are left as is.
+ * Enabled with the {@code hudson.plugins.gradle.GradleTaskSectionNote.enabled} system property.
+ */
+public final class GradleTaskSectionNote extends ConsoleNote<Object> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Non-private for use in tests. */
+    static boolean ENABLED = Boolean.getBoolean(GradleTaskSectionNote.class.getName() + ".enabled");
+
+    @Override
+    public ConsoleAnnotator<Object> annotate(Object context, MarkupText text, int charPos) {
+        return TaskAnnotator.INSTANCE.annotate(context, text);
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends ConsoleAnnotationDescriptor {
+        public String getDisplayName() {
+            return "Gradle task headers";
+        }
+    }
+
+    private static final class TaskAnnotator extends ConsoleAnnotator<Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final TaskAnnotator INSTANCE = new TaskAnnotator();
+
+        @Override
+        public ConsoleAnnotator<Object> annotate(Object context, MarkupText text) {
+            String line = text.getText();
+            if (line.startsWith("BUILD SUCCESSFUL") || line.startsWith("BUILD FAILED")) {
+                return null;
+            }
+            if (GradleTaskNote.ENABLED && (line.startsWith(":") || line.startsWith("> Task :"))) {
+                GradleTaskNote.addMarkup(text);
+            }
+            return this;
+        }
+
+        private Object readResolve() {
+            return INSTANCE;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package hudson.plugins.gradle;
+
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.plugins.gradle.util.ActionUtil;
+import hudson.util.AtomicFileWriter;
+import jenkins.model.RunAction2;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import javax.annotation.CheckForNull;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The Gradle tasks executed by a run, in the order their headers were printed to the console.
+ * <p>
+ * The timeline is recorded from the console output by {@link GradleTaskTimelineExtractor}, so that it is available
+ * without a build scan. It is kept in parallel primitive arrays, as large builds execute many thousands of tasks.
+ * The duration of a task is the time until the next task or the end of the Gradle build, which is the time the task
+ * dominated the console when tasks run in parallel.
+ * <p>
+ * The action is only attached once a task header is seen. The timeline is stored in {@code gradle-tasks.tsv} next to
+ * the {@code build.xml} of the run, one task per line, at the end of each Gradle build and of the run, and is only
+ * read back when first displayed.
+ */
+@ExportedBean
+public class GradleTaskTimelineAction implements RunAction2 {
+
+    private static final Logger LOGGER = Logger.getLogger(GradleTaskTimelineAction.class.getName());
+
+    static final String FILE_NAME = "gradle-tasks.tsv";
+
+    private static final String END_OF_BUILD_MARKER = "END";
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final int MAX_TASKS = Integer.getInteger(GradleTaskTimelineAction.class.getName() + ".maxTasks", 50_000);
+
+    /**
+     * Marks the end of a Gradle build, as several builds may be run by a single Jenkins build.
+     */
+    private static final byte END_OF_BUILD = -1;
+
+    // None of the timeline is persisted with the action, see load() and store()
+
+    private transient int size;
+
+    private transient String[] paths;
+
+    private transient byte[] outcomes;
+
+    /**
+     * The time the task header was printed, in milliseconds since the start of the run.
+     */
+    private transient long[] offsets;
+
+    // whether the timeline has changed since it was stored
+    private transient boolean dirty;
+
+    private transient Run<?, ?> run;
+
+    static GradleTaskTimelineAction of(Run<?, ?> run) {
+        return ActionUtil.getOrCreate(run, GradleTaskTimelineAction.class, GradleTaskTimelineAction::new);
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public synchronized String getIconFileName() {
+        load();
+        return size > 0 ? "clock.png" : null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Gradle Tasks";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "gradleTasks";
+    }
+
+    synchronized void addTask(String path, TaskOutcome outcome, long offset) {
+        load();
+        add(path, (byte) outcome.ordinal(), offset);
+    }
+
+    /**
+     * Also stores the timeline, as the end of a Gradle build may be the last output of the run.
+     */
+    synchronized void addEndOfBuild(long offset) {
+        load();
+        if (size > 0 && outcomes[size - 1] != END_OF_BUILD) {
+            add(null, END_OF_BUILD, offset);
+        }
+        store();
+    }
+
+    private void add(String path, byte outcome, long offset) {
+        if (size == MAX_TASKS) {
+            return;
+        }
+        dirty = true;
+        if (size == paths.length) {
+            int capacity = Math.min(MAX_TASKS, size * 2);
+            paths = Arrays.copyOf(paths, capacity);
+            outcomes = Arrays.copyOf(outcomes, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+        }
+        paths[size] = path;
+        outcomes[size] = outcome;
+        offsets[size] = offset;
+        size++;
+    }
+
+    @Exported
+    public synchronized List<TaskExecution> getTasks() {
+        load();
+        List<TaskExecution> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (outcomes[i] != END_OF_BUILD) {
+                long end = i + 1 < size ? offsets[i + 1] : offsets[i];
+                tasks.add(new TaskExecution(paths[i], TaskOutcome.values()[outcomes[i]], offsets[i], end - offsets[i]));
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * The tasks which dominated the wall-clock time, longest first.
+     */
+    public List<TaskExecution> getLongestTasks(int count) {
+        List<TaskExecution> tasks = getTasks();
+        tasks.sort(Comparator.comparingLong(TaskExecution::getDurationInMillis).reversed());
+        return tasks.size() > count ? tasks.subList(0, count) : tasks;
+    }
+
+    @Exported
+    public Map<TaskOutcome, Integer> getOutcomeCounts() {
+        Map<TaskOutcome, Integer> counts = new EnumMap<>(TaskOutcome.class);
+        for (TaskExecution task : getTasks()) {
+            counts.merge(task.getOutcome(), 1, Integer::sum);
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * The file the timeline is stored in.
+     *
+     * @return {@code null} if the action is not attached to a run
+     */
+    @CheckForNull
+    File getFile() {
+        return run == null ? null : new File(run.getRootDir(), FILE_NAME);
+    }
+
+    /**
+     * Reads the stored timeline, if any, the first time it is needed.
+     * Must be called while holding the lock of the action.
+     */
+    private void load() {
+        if (paths != null) {
+            return;
+        }
+        size = 0;
+        paths = new String[INITIAL_CAPACITY];
+        outcomes = new byte[INITIAL_CAPACITY];
+        offsets = new long[INITIAL_CAPACITY];
+
+        File file = getFile();
+        if (file == null) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 3);
+                try {
+                    long offset = Long.parseLong(fields[0]);
+                    if (END_OF_BUILD_MARKER.equals(fields[1])) {
+                        add(null, END_OF_BUILD, offset);
+                    } else {
+                        add(fields[2], (byte) TaskOutcome.valueOf(fields[1]).ordinal(), offset);
+                    }
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.FINE, "Skipping malformed line of " + file + ": " + line, e);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // no task recorded
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to read the Gradle tasks of " + run + " from " + file, e);
+        }
+        dirty = false;
+    }
+
+    /**
+     * Writes the timeline to its file, if it has changed.
+     */
+    synchronized void store() {
+        File file = getFile();
+        if (!dirty || file == null) {
+            return;
+        }
+        try {
+            AtomicFileWriter writer = new AtomicFileWriter(file.toPath(), StandardCharsets.UTF_8);
+            try {
+                StringBuilder line = new StringBuilder();
+                for (int i = 0; i < size; i++) {
+                    line.setLength(0);
+                    line.append(offsets[i]).append('\t');
+                    if (outcomes[i] == END_OF_BUILD) {
+                        line.append(END_OF_BUILD_MARKER);
+                    } else {
+                        line.append(TaskOutcome.values()[outcomes[i]].name()).append('\t').append(paths[i]);
+                    }
+                    writer.write(line.append('\n').toString());
+                }
+                writer.commit();
+            } finally {
+                writer.abort();
+            }
+            dirty = false;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to store the Gradle tasks of " + run + " in " + file, e);
+        }
+    }
+
+    /**
+     * Stores the timelines of the runs whose Gradle output did not end with the outcome of the build.
+     */
+    @Extension
+    public static final class StoreOnCompletion extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onCompleted(Run<?, ?> run, TaskListener listener) {
+            GradleTaskTimelineAction timeline = run.getAction(GradleTaskTimelineAction.class);
+            if (timeline != null) {
+                timeline.store();
+            }
+        }
+    }
+
+    public enum TaskOutcome {
+        EXECUTED,
+        UP_TO_DATE,
+        FROM_CACHE,
+        NO_SOURCE,
+        SKIPPED,
+        FAILED;
+
+        /**
+         * The outcome printed after the task path, e.g. {@code UP-TO-DATE}.
+         */
+        @CheckForNull
+        static TaskOutcome parse(String status) {
+            switch (status) {
+                case "":
+                    return EXECUTED;
+                case "UP-TO-DATE":
+                    return UP_TO_DATE;
+                case "FROM-CACHE":
+                    return FROM_CACHE;
+                case "NO-SOURCE":
+                    return NO_SOURCE;
+                case "SKIPPED":
+                    return SKIPPED;
+                case "FAILED":
+                    return FAILED;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    @ExportedBean(defaultVisibility = 2)
+    public static final class TaskExecution {
+
+        private final String path;
+        private final TaskOutcome outcome;
+        private final long startOffsetInMillis;
+        private final long durationInMillis;
+
+        TaskExecution(String path, TaskOutcome outcome, long startOffsetInMillis, long durationInMillis) {
+            this.path = path;
+            this.outcome = outcome;
+            this.startOffsetInMillis = startOffsetInMillis;
+            this.durationInMillis = durationInMillis;
+        }
+
+        @Exported
+        public String getPath() {
+            return path;
+        }
+
+        @Exported
+        public TaskOutcome getOutcome() {
+            return outcome;
+        }
+
+        @Exported
+        public long getStartOffsetInMillis() {
+            return startOffsetInMillis;
+        }
+
+        @Exported
+        public long getDurationInMillis() {
+            return durationInMillis;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package hudson.plugins.gradle;
+
+import com.google.common.annotations.VisibleForTesting;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.plugins.gradle.util.AsciiBytes;
+
+import javax.annotation.CheckForNull;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Records the {@link GradleTaskTimelineAction} and the {@link GradleTaskOutcomesAction} of a run from the task headers
+ * printed by Gradle.
+ */
+@Extension
+public class GradleTaskTimelineExtractor extends GradleConsoleLineExtractor {
+
+    private static final byte[] TASK_PREFIX = AsciiBytes.of(":");
+    private static final byte[] RICH_TASK_PREFIX = AsciiBytes.of("> Task :");
+    private static final byte[] BUILD_SUCCESSFUL = AsciiBytes.of("BUILD SUCCESSFUL");
+    private static final byte[] BUILD_FAILED = AsciiBytes.of("BUILD FAILED");
+
+    /** Non-private for use in tests. */
+    static boolean ENABLED = !Boolean.getBoolean(GradleTaskTimelineExtractor.class.getName() + ".disabled");
+
+    @CheckForNull
+    @Override
+    public ConsoleLineHandler createHandler(@CheckForNull Run<?, ?> run) {
+        if (!ENABLED || run == null) {
+            return null;
+        }
+        long start = run.getStartTimeInMillis();
+        return new TimelineHandler(
+            () -> GradleTaskTimelineAction.of(run), () -> GradleTaskOutcomesAction.of(run), () -> System.currentTimeMillis() - start);
+    }
+
+    @VisibleForTesting
+    static final class TimelineHandler implements ConsoleLineHandler {
+
+        private final Supplier<GradleTaskTimelineAction> timelineFactory;
+        private final Supplier<GradleTaskOutcomesAction> outcomesFactory;
+        private final LongSupplier clock;
+
+        // attached to the run on the first task, so that runs which do not run Gradle get neither action
+        @CheckForNull
+        private GradleTaskTimelineAction timeline;
+        @CheckForNull
+        private GradleTaskOutcomesAction outcomes;
+
+        TimelineHandler(Supplier<GradleTaskTimelineAction> timelineFactory, Supplier<GradleTaskOutcomesAction> outcomesFactory, LongSupplier clock) {
+            this.timelineFactory = timelineFactory;
+            this.outcomesFactory = outcomesFactory;
+            this.clock = clock;
+        }
+
+        @Override
+        public boolean isCandidate(byte[] b, int len) {
+            return AsciiBytes.startsWith(b, len, TASK_PREFIX)
+                || AsciiBytes.startsWith(b, len, RICH_TASK_PREFIX)
+                || AsciiBytes.startsWith(b, len, BUILD_SUCCESSFUL)
+                || AsciiBytes.startsWith(b, len, BUILD_FAILED);
+        }
+
+        @Override
+        public void onLine(String line) {
+            if (line.startsWith("> Task :")) {
+                onTask(line, "> Task ".length());
+            } else if (line.startsWith(":")) {
+                onTask(line, 0);
+            } else if ((line.startsWith("BUILD SUCCESSFUL") || line.startsWith("BUILD FAILED")) && timeline != null) {
+                timeline.addEndOfBuild(clock.getAsLong());
+            }
+        }
+
+        /**
+         * Parses headers like {@code > Task :app:compileJava UP-TO-DATE}, ignoring any other line starting with a
+         * colon.
+         */
+        private void onTask(String line, int pathStart) {
+            int pathEnd = line.indexOf(' ', pathStart);
+            if (pathEnd < 0) {
+                pathEnd = line.length();
+            }
+            if (pathEnd - pathStart < 2 || line.charAt(pathStart + 1) == ':') {
+                return;
+            }
+
+            GradleTaskTimelineAction.TaskOutcome outcome = GradleTaskTimelineAction.TaskOutcome.parse(line.substring(pathEnd).trim());
+            if (outcome != null) {
+                if (timeline == null) {
+                    timeline = timelineFactory.get();
+                    outcomes = outcomesFactory.get();
+                }
+                timeline.addTask(line.substring(pathStart, pathEnd), outcome, clock.getAsLong());
+                outcomes.increment(outcome);
+            }
+        }
+    }
+}
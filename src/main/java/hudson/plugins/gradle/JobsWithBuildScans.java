@@ -0,0 +1,92 @@
+package hudson.plugins.gradle;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.listeners.ItemListener;
+
+import javax.annotation.CheckForNull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which jobs have produced a build scan in their last builds, so that {@link GradleConsoleLogFilter} can
+ * tell whether to scan the console of a run without looking at the previous builds of the job every time.
+ */
+public final class JobsWithBuildScans {
+
+    /**
+     * The number of completed builds looked at the first time a job is checked after a restart.
+     */
+    private static final int BUILDS_TO_CHECK = 10;
+
+    // by job full name: true if the job has produced a build scan, false if its last builds did not produce any
+    private static final Map<String, Boolean> JOBS = new ConcurrentHashMap<>();
+
+    private JobsWithBuildScans() {
+    }
+
+    static boolean hasProducedBuildScan(Job<?, ?> job) {
+        return Boolean.TRUE.equals(getState(job));
+    }
+
+    /**
+     * Whether none of the last {@value #BUILDS_TO_CHECK} completed builds of the job produced a build scan. Not the
+     * case of the jobs with fewer builds, which have not had the chance to yet.
+     */
+    static boolean hasHistoryWithoutBuildScans(Job<?, ?> job) {
+        return Boolean.FALSE.equals(getState(job));
+    }
+
+    static void recordBuildScan(Run<?, ?> run) {
+        JOBS.put(run.getParent().getFullName(), Boolean.TRUE);
+    }
+
+    @CheckForNull
+    private static Boolean getState(Job<?, ?> job) {
+        String name = job.getFullName();
+        Boolean state = JOBS.get(name);
+        if (state != null) {
+            return state;
+        }
+        state = lookUpState(job);
+        // a build scan recorded in the meantime wins
+        return state == null ? null : JOBS.merge(name, state, Boolean::logicalOr);
+    }
+
+    @CheckForNull
+    private static Boolean lookUpState(Job<?, ?> job) {
+        int completed = 0;
+        for (Run<?, ?> run : job.getBuilds()) {
+            if (run.getAction(BuildScanAction.class) != null) {
+                return Boolean.TRUE;
+            }
+            if (!run.isBuilding() && ++completed == BUILDS_TO_CHECK) {
+                return Boolean.FALSE;
+            }
+        }
+        return null;
+    }
+
+    private static void forget(String fullName) {
+        JOBS.keySet().removeIf(name -> name.equals(fullName) || name.startsWith(fullName + "/"));
+    }
+
+    /**
+     * Forgets the jobs which are deleted, renamed or moved, and the jobs of such folders.
+     */
+    @Extension
+    public static final class JobListener extends ItemListener {
+
+        @Override
+        public void onDeleted(Item item) {
+            forget(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            forget(oldFullName);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package hudson.plugins.gradle;
+
+import hudson.console.LineTransformationOutputStream;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Scans a log streamed from an arbitrary log storage. Only complete lines are scanned, unless the stream is closed.
+ */
+final class LineScanningOutputStream extends LineTransformationOutputStream {
+
+    private final BuildScanLogScanner scanner;
+    private final Charset charset;
+    private long scannedBytes;
+
+    LineScanningOutputStream(BuildScanLogScanner scanner, Charset charset) {
+        this.scanner = scanner;
+        this.charset = charset;
+    }
+
+    @Override
+    protected void eol(byte[] b, int len) {
+        scanner.scanLine(trimEOL(charset.decode(ByteBuffer.wrap(b, 0, len)).toString()));
+        scannedBytes += len;
+    }
+
+    long getScannedBytes() {
+        return scannedBytes;
+    }
+}
@@ -0,0 +1,81 @@
+package hudson.plugins.gradle;
+
+import hudson.Extension;
+import hudson.cli.CLICommand;
+import jenkins.model.Jenkins;
+import org.kohsuke.args4j.Option;
+
+import java.util.concurrent.TimeUnit;
+
+/* Add a new command to the jenkins CLI, query-build-scans.
+ *
+ * This lists the build scans of the controller matching the given criteria,
+ * most recent first, from the build scan index, one JSON object per line.
+ * Only the build scans of the jobs visible to the user are listed.
+ */
+@Extension
+public class QueryBuildScansCommand extends CLICommand {
+
+    @Override
+    public String getName() {
+        return "query-build-scans";
+    }
+
+    @Override
+    public String getShortDescription() {
+        return "List the build scans published by builds";
+    }
+
+    @Option(name = "--scan-id",
+            usage = "[Optional] The ID of the build scan, the last part of its URL.")
+    public String scanId = null;
+
+    @Option(name = "--project",
+            usage = "[Optional] The name of the Gradle or Maven project, ignoring case.")
+    public String project = null;
+
+    @Option(name = "--job",
+            usage = "[Optional] The full name of the job which published the build scans.")
+    public String job = null;
+
+    @Option(name = "--outcome",
+            usage = "[Optional] The outcome of the builds, failed or succeeded.")
+    public String outcome = null;
+
+    @Option(name = "--since-hours",
+            usage = "[Optional] Only the build scans of the builds started in the given number of last hours.")
+    public int sinceHours = 0;
+
+    @Option(name = "--limit",
+            usage = "[Optional] The maximum number of build scans to list. Defaults to 100.")
+    public int limit = 100;
+
+    // return values
+    private static final int OK = 0;
+    private static final int INVALID = 1;
+
+    @Override
+    protected int run() throws Exception {
+        Jenkins.get().checkPermission(Jenkins.READ);
+
+        BuildScanIndex.Query query = new BuildScanIndex.Query()
+            .scanId(scanId)
+            .project(project)
+            .job(job)
+            .limit(limit);
+        try {
+            query.failed(BuildScanIndex.parseOutcome(outcome));
+        } catch (IllegalArgumentException e) {
+            stderr.println(e.getMessage());
+            return INVALID;
+        }
+        if (sinceHours > 0) {
+            query.since(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(sinceHours));
+        }
+
+        for (BuildScanIndex.Entry entry : BuildScanIndex.get().queryVisible(query)) {
+            stdout.println(entry.toJson());
+        }
+        return OK;
+    }
+}
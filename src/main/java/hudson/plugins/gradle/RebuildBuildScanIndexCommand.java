@@ -0,0 +1,57 @@
+package hudson.plugins.gradle;
+
+import com.google.common.collect.Iterators;
+import hudson.Extension;
+import hudson.cli.CLICommand;
+import hudson.model.Job;
+import hudson.model.Run;
+import jenkins.model.Jenkins;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* Add a new command to the jenkins CLI, rebuild-build-scan-index.
+ *
+ * This replaces the content of the build scan index with the build scans
+ * recorded on the runs of all jobs, e.g. after upgrading from a version of
+ * the plugin without the index, or if the index file was lost.
+ */
+@Extension
+public class RebuildBuildScanIndexCommand extends CLICommand {
+
+    @Override
+    public String getName() {
+        return "rebuild-build-scan-index";
+    }
+
+    @Override
+    public String getShortDescription() {
+        return "Rebuild the index of the build scans from the builds";
+    }
+
+    // the number of builds looked at
+    private final AtomicInteger builds = new AtomicInteger();
+
+    @Override
+    protected int run() throws Exception {
+        Jenkins jenkins = Jenkins.get();
+        jenkins.checkPermission(Jenkins.ADMINISTER);
+
+        List<Job> jobs = jenkins.getAllItems(Job.class);
+
+        // iterated lazily, job by job, so that the builds of all jobs are not loaded at once
+        Iterable<Run<?, ?>> runs = () -> Iterators.concat(Iterators.transform(jobs.iterator(), this::runsToIndex));
+
+        int indexed = BuildScanIndex.get().rebuild(runs);
+        stdout.printf("Indexed %d build scan(s) of %d build(s)%n", indexed, builds.get());
+        return 0;
+    }
+
+    private Iterator<Run<?, ?>> runsToIndex(Job<?, ?> job) {
+        return Iterators.transform(job.getBuilds().iterator(), run -> {
+            builds.incrementAndGet();
+            return run;
+        });
+    }
+}
@@ -3,8 +3,9 @@ package hudson.plugins.gradle;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.plugins.gradle.enriched.EnrichedSummaryConfig;
-import hudson.plugins.gradle.enriched.ScanDetail;
+import hudson.plugins.gradle.enriched.ScanDetailEnricher;
 import hudson.plugins.gradle.enriched.ScanDetailService;
+import hudson.plugins.gradle.util.ActionUtil;
 import org.jenkinsci.plugins.workflow.graph.FlowNode;
 import org.jenkinsci.plugins.workflow.log.TaskListenerDecorator;
 import org.jenkinsci.plugins.workflow.steps.BodyExecutionCallback;
@@ -16,7 +17,6 @@ import java.io.PrintStream;
 import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
 public class WithGradleExecution extends StepExecution {
 
@@ -26,7 +26,7 @@ public class WithGradleExecution extends StepExecution {
 
     @Override
     public boolean start() throws IOException, InterruptedException {
-        GradleTaskListenerDecorator decorator = new GradleTaskListenerDecorator();
+        GradleTaskListenerDecorator decorator = new GradleTaskListenerDecorator(getContext().get(Run.class));
 
         getContext().newBodyInvoker()
                 .withContext(TaskListenerDecorator.merge(getContext().get(TaskListenerDecorator.class), decorator))
@@ -63,25 +63,19 @@ public class WithGradleExecution extends StepExecution {
                 }
                 Run run = context.get(Run.class);
                 FlowNode flowNode = context.get(FlowNode.class);
+                // parallel branches may complete concurrently
+                BuildScanAction buildScanAction = ActionUtil.getOrCreate(run, BuildScanAction.class, BuildScanAction::new);
                 flowNode.getParents().stream().findFirst().ifPresent(parent -> {
-                    BuildScanFlowAction nodeBuildScanAction = new BuildScanFlowAction(parent);
-                    buildScans.forEach(nodeBuildScanAction::addScanUrl);
-                    parent.addAction(nodeBuildScanAction);
+                    ActionUtil.getOrCreate(parent, BuildScanFlowAction.class, () -> new BuildScanFlowAction(parent))
+                        .addScanUrls(buildScans);
+                    buildScanAction.addFlowNode(parent);
                 });
-
-                BuildScanAction existingAction = run.getAction(BuildScanAction.class);
-                BuildScanAction buildScanAction = existingAction == null
-                        ? new BuildScanAction()
-                        : existingAction;
                 ScanDetailService scanDetailService = new ScanDetailService(EnrichedSummaryConfig.get());
-                buildScans.forEach(scanUrl -> {
-                    buildScanAction.addScanUrl(scanUrl);
-                    Optional<ScanDetail> scanDetail = scanDetailService.getScanDetail(scanUrl);
-                    scanDetail.ifPresent(buildScanAction::addScanDetail);
+                buildScanAction.addScanUrls(buildScans);
+                ScanDetailEnricher.get().enrichAll(buildScans, run.getExternalizableId(), scanDetailService, scanDetail -> {
+                    buildScanAction.addScanDetail(scanDetail);
+                    DefaultBuildScanPublishedListener.save(run);
                 });
-                if (existingAction == null) {
-                    run.addAction(buildScanAction);
-                }
                 return buildScans;
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
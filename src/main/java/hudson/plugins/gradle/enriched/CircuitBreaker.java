@@ -0,0 +1,60 @@
+package hudson.plugins.gradle.enriched;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calling a Gradle Enterprise server after consecutive failures. Once the open period is over, a single trial
+ * request is let through: it closes the circuit if it succeeds, and reopens it otherwise.
+ */
+public class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openDurationMillis;
+    private final LongSupplier clock;
+
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean trialInFlight;
+
+    CircuitBreaker(int failureThreshold, long openDurationMillis, LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = openDurationMillis;
+        this.clock = clock;
+    }
+
+    public synchronized boolean allowRequest() {
+        if (consecutiveFailures < failureThreshold) {
+            return true;
+        }
+        if (trialInFlight || clock.getAsLong() < openUntil) {
+            return false;
+        }
+        trialInFlight = true;
+        return true;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (consecutiveFailures >= failureThreshold) {
+            openUntil = clock.getAsLong() + openDurationMillis;
+        }
+    }
+
+    /**
+     * Ends a request which neither succeeded nor failed because of the server, e.g. aborted, so that another trial
+     * request can be let through.
+     */
+    public synchronized void recordAborted() {
+        trialInFlight = false;
+    }
+
+    public synchronized boolean isOpen() {
+        return consecutiveFailures >= failureThreshold;
+    }
+}
@@ -0,0 +1,41 @@
+package hudson.plugins.gradle.enriched;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller-wide {@link CircuitBreaker}s, one per Gradle Enterprise server.
+ */
+@Extension
+public class CircuitBreakers {
+
+    private static final int FAILURE_THRESHOLD =
+        Integer.getInteger(CircuitBreakers.class.getName() + ".failureThreshold", 5);
+    private static final long OPEN_DURATION_MILLIS =
+        TimeUnit.SECONDS.toMillis(Long.getLong(CircuitBreakers.class.getName() + ".openDurationInSeconds", 60));
+
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    public static CircuitBreakers get() {
+        return ExtensionList.lookupSingleton(CircuitBreakers.class);
+    }
+
+    public CircuitBreaker forServer(String server) {
+        return circuitBreakers.computeIfAbsent(server, s -> new CircuitBreaker(FAILURE_THRESHOLD, OPEN_DURATION_MILLIS, System::currentTimeMillis));
+    }
+
+    /**
+     * Whether the circuit of each server called so far is open, i.e. whether the server is currently not called.
+     */
+    public Map<String, Boolean> getStates() {
+        Map<String, Boolean> states = new TreeMap<>();
+        circuitBreakers.forEach((server, circuitBreaker) -> states.put(server, circuitBreaker.isOpen()));
+        return states;
+    }
+}
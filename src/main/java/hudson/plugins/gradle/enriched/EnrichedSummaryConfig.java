@@ -4,9 +4,11 @@ import hudson.Extension;
 import hudson.ExtensionList;
 import hudson.Util;
 import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
 import hudson.util.Secret;
 import jenkins.model.GlobalConfiguration;
 import net.sf.json.JSONObject;
+import org.apache.http.pool.PoolStats;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.DataBoundSetter;
@@ -14,6 +16,9 @@ import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.verb.POST;
 
+import java.util.Map;
+import java.util.stream.Collectors;
+
 @Extension
 public class EnrichedSummaryConfig extends GlobalConfiguration {
     private boolean enrichedSummaryEnabled;
@@ -21,6 +26,12 @@ public class EnrichedSummaryConfig extends GlobalConfiguration {
     private int httpClientTimeoutInSeconds = 1;
     private int httpClientMaxRetries = 3;
     private int httpClientDelayBetweenRetriesInSeconds = 1;
+    private boolean parallelAttributesFetchEnabled;
+
+    private int enrichmentQueueSize = 100;
+    private int enrichmentWorkerThreads = 2;
+    private EnrichmentOverflowPolicy enrichmentOverflowPolicy = EnrichmentOverflowPolicy.DISCARD_NEWEST;
+    private boolean lazyEnrichmentEnabled;
 
     private String buildScanServer;
     private Secret buildScanAccessKey;
@@ -69,6 +80,51 @@ public class EnrichedSummaryConfig extends GlobalConfiguration {
         this.httpClientDelayBetweenRetriesInSeconds = httpClientDelayBetweenRetriesInSeonds;
     }
 
+    public boolean isLazyEnrichmentEnabled() {
+        return lazyEnrichmentEnabled;
+    }
+
+    @DataBoundSetter
+    public void setLazyEnrichmentEnabled(boolean lazyEnrichmentEnabled) {
+        this.lazyEnrichmentEnabled = lazyEnrichmentEnabled;
+    }
+
+    public boolean isParallelAttributesFetchEnabled() {
+        return parallelAttributesFetchEnabled;
+    }
+
+    @DataBoundSetter
+    public void setParallelAttributesFetchEnabled(boolean parallelAttributesFetchEnabled) {
+        this.parallelAttributesFetchEnabled = parallelAttributesFetchEnabled;
+    }
+
+    public int getEnrichmentQueueSize() {
+        return enrichmentQueueSize;
+    }
+
+    @DataBoundSetter
+    public void setEnrichmentQueueSize(int enrichmentQueueSize) {
+        this.enrichmentQueueSize = enrichmentQueueSize;
+    }
+
+    public int getEnrichmentWorkerThreads() {
+        return enrichmentWorkerThreads;
+    }
+
+    @DataBoundSetter
+    public void setEnrichmentWorkerThreads(int enrichmentWorkerThreads) {
+        this.enrichmentWorkerThreads = enrichmentWorkerThreads;
+    }
+
+    public EnrichmentOverflowPolicy getEnrichmentOverflowPolicy() {
+        return enrichmentOverflowPolicy;
+    }
+
+    @DataBoundSetter
+    public void setEnrichmentOverflowPolicy(EnrichmentOverflowPolicy enrichmentOverflowPolicy) {
+        this.enrichmentOverflowPolicy = enrichmentOverflowPolicy;
+    }
+
     public String getBuildScanServer() {
         return buildScanServer;
     }
@@ -102,6 +158,33 @@ public class EnrichedSummaryConfig extends GlobalConfiguration {
         return true;
     }
 
+    @Restricted(NoExternalUse.class)
+    public String getHttpClientPoolStatistics() {
+        PoolStats stats = SharedHttpClient.get().getPoolStats();
+        if (stats == null) {
+            return "No connection opened yet";
+        }
+        return String.format("%d leased, %d available, %d pending, %d max",
+            stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+    }
+
+    @Restricted(NoExternalUse.class)
+    public String getScanDetailCacheStatistics() {
+        ScanDetailCache cache = ScanDetailCache.get();
+        return String.format("%d entries, %d hits, %d misses", cache.size(), cache.getHitCount(), cache.getMissCount());
+    }
+
+    @Restricted(NoExternalUse.class)
+    public String getCircuitBreakerStates() {
+        Map<String, Boolean> states = CircuitBreakers.get().getStates();
+        if (states.isEmpty()) {
+            return "No server called yet";
+        }
+        return states.entrySet().stream()
+            .map(state -> state.getKey() + ": " + (state.getValue() ? "unavailable" : "available"))
+            .collect(Collectors.joining(", "));
+    }
+
     @Restricted(NoExternalUse.class)
     @POST
     public FormValidation doCheckHttpClientTimeoutInSeconds(@QueryParameter int value) {
@@ -132,4 +215,33 @@ public class EnrichedSummaryConfig extends GlobalConfiguration {
         }
     }
 
+    @Restricted(NoExternalUse.class)
+    @POST
+    public FormValidation doCheckEnrichmentQueueSize(@QueryParameter int value) {
+        if (value >= 1 && value <= 10000) {
+            return FormValidation.ok();
+        } else {
+            return FormValidation.error("Queue size must be in [1,10000].");
+        }
+    }
+
+    @Restricted(NoExternalUse.class)
+    @POST
+    public FormValidation doCheckEnrichmentWorkerThreads(@QueryParameter int value) {
+        if (value >= 1 && value <= 32) {
+            return FormValidation.ok();
+        } else {
+            return FormValidation.error("Worker threads must be in [1,32].");
+        }
+    }
+
+    @Restricted(NoExternalUse.class)
+    public ListBoxModel doFillEnrichmentOverflowPolicyItems() {
+        ListBoxModel items = new ListBoxModel();
+        for (EnrichmentOverflowPolicy policy : EnrichmentOverflowPolicy.values()) {
+            items.add(policy.getDisplayName(), policy.name());
+        }
+        return items;
+    }
+
 }
@@ -0,0 +1,23 @@
+package hudson.plugins.gradle.enriched;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+
+/**
+ * Applies the enrichment settings to the long-lived enrichment components when the {@link EnrichedSummaryConfig} changes.
+ */
+@Extension
+public class EnrichedSummaryConfigChangeListener extends SaveableListener {
+
+    @Override
+    public void onChange(Saveable saveable, XmlFile file) {
+        if (saveable instanceof EnrichedSummaryConfig) {
+            EnrichedSummaryConfig config = (EnrichedSummaryConfig) saveable;
+
+            ScanDetailEnricher.get().reconfigure(config);
+            SharedHttpClient.get().reconfigure(config.getHttpClientTimeoutInSeconds());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package hudson.plugins.gradle.enriched;
+
+import hudson.Extension;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Stops fetching build scan details, including scheduled retries, of runs which have been aborted.
+ */
+@Extension
+public class EnrichmentAbortListener extends RunListener<Run<?, ?>> {
+
+    @Override
+    public void onCompleted(Run<?, ?> run, @Nonnull TaskListener listener) {
+        if (run.getResult() == Result.ABORTED) {
+            ScanDetailEnricher.get().cancel(run.getExternalizableId());
+        }
+    }
+}
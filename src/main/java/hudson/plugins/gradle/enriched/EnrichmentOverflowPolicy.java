@@ -0,0 +1,21 @@
+package hudson.plugins.gradle.enriched;
+
+/**
+ * What happens to a build scan submitted for enrichment when the enrichment queue is full.
+ */
+public enum EnrichmentOverflowPolicy {
+
+    DISCARD_NEWEST("Discard the newest build scan"),
+    DISCARD_OLDEST("Discard the oldest queued build scan"),
+    CALLER_RUNS("Fetch the build scan on the calling thread");
+
+    private final String displayName;
+
+    EnrichmentOverflowPolicy(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -1,29 +1,55 @@
 package hudson.plugins.gradle.enriched;
 
-import com.google.common.util.concurrent.Uninterruptibles;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 
 import java.util.concurrent.TimeUnit;
 
 class HttpClientFactory {
 
-    public CloseableHttpClient buildHttpClient(int httpClientTimeoutInSeconds, int httpClientMaxRetries, int httpClientDelayBetweenRetriesInSeconds) {
+    private static final int MAX_CONNECTIONS_TOTAL =
+        Integer.getInteger(HttpClientFactory.class.getName() + ".maxConnectionsTotal", 20);
+    private static final int MAX_CONNECTIONS_PER_ROUTE =
+        Integer.getInteger(HttpClientFactory.class.getName() + ".maxConnectionsPerRoute", 10);
+    private static final long KEEP_ALIVE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final long MAX_IDLE_SECONDS = 30;
+
+    /**
+     * Honors the keep-alive duration sent by the server, but never keeps a connection longer than {@link #KEEP_ALIVE_MILLIS}.
+     */
+    private static final ConnectionKeepAliveStrategy KEEP_ALIVE_STRATEGY = (response, context) -> {
+        long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return keepAlive > 0 ? Math.min(keepAlive, KEEP_ALIVE_MILLIS) : KEEP_ALIVE_MILLIS;
+    };
+
+    public PoolingHttpClientConnectionManager buildConnectionManager() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(MAX_CONNECTIONS_TOTAL);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        return connectionManager;
+    }
+
+    /**
+     * Requests are never retried by the client itself, see {@link ScanDetailService} for the retry scheduling.
+     */
+    public CloseableHttpClient buildHttpClient(HttpClientConnectionManager connectionManager, int httpClientTimeoutInSeconds) {
         RequestConfig config = RequestConfig.custom()
                 .setConnectTimeout(httpClientTimeoutInSeconds * 1000)
                 .setConnectionRequestTimeout(httpClientTimeoutInSeconds * 1000)
                 .setSocketTimeout(httpClientTimeoutInSeconds * 1000).build();
 
         return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(KEEP_ALIVE_STRATEGY)
+                .evictExpiredConnections()
+                .evictIdleConnections(MAX_IDLE_SECONDS, TimeUnit.SECONDS)
                 .setDefaultRequestConfig(config)
-                .setRetryHandler((exception, executionCount, context) -> {
-                    if (executionCount > httpClientMaxRetries) {
-                        return false;
-                    } else {
-                        Uninterruptibles.sleepUninterruptibly(httpClientDelayBetweenRetriesInSeconds, TimeUnit.SECONDS);
-                        return true;
-                    }
-                }).build();
+                .disableAutomaticRetries()
+                .build();
     }
 }
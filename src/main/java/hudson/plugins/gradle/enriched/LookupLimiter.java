@@ -0,0 +1,83 @@
+package hudson.plugins.gradle.enriched;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bounds the number of build scan lookups running against a Gradle Enterprise server, whichever builds they are
+ * made for. The other lookups are queued, and started as the running ones complete.
+ */
+public class LookupLimiter {
+
+    private final int maxConcurrentLookups;
+
+    // guarded by this
+    private final Queue<QueuedLookup> queued = new ArrayDeque<>();
+    private int running;
+
+    LookupLimiter(int maxConcurrentLookups) {
+        this.maxConcurrentLookups = Math.max(1, maxConcurrentLookups);
+    }
+
+    /**
+     * Starts the lookup now, or once another lookup of the server completes. The lookup is running until the given
+     * future completes, and is dropped if the future completes while it is still queued.
+     *
+     * @param start starts the lookup, must not block
+     */
+    public void submit(CompletableFuture<?> lookup, Runnable start) {
+        synchronized (this) {
+            if (running >= maxConcurrentLookups) {
+                QueuedLookup queuedLookup = new QueuedLookup(lookup, start);
+                queued.add(queuedLookup);
+                lookup.whenComplete((result, t) -> dequeue(queuedLookup));
+                return;
+            }
+            running++;
+        }
+        start(lookup, start);
+    }
+
+    private void start(CompletableFuture<?> lookup, Runnable start) {
+        lookup.whenComplete((result, t) -> startNext());
+        start.run();
+    }
+
+    private void startNext() {
+        QueuedLookup next;
+        synchronized (this) {
+            do {
+                next = queued.poll();
+            } while (next != null && next.lookup.isDone());
+            if (next == null) {
+                running--;
+                return;
+            }
+        }
+        start(next.lookup, next.start);
+    }
+
+    private synchronized void dequeue(QueuedLookup queuedLookup) {
+        queued.remove(queuedLookup);
+    }
+
+    synchronized int getRunning() {
+        return running;
+    }
+
+    synchronized int getQueued() {
+        return queued.size();
+    }
+
+    private static final class QueuedLookup {
+
+        private final CompletableFuture<?> lookup;
+        private final Runnable start;
+
+        private QueuedLookup(CompletableFuture<?> lookup, Runnable start) {
+            this.lookup = lookup;
+            this.start = start;
+        }
+    }
+}
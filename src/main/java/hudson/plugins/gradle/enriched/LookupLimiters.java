@@ -0,0 +1,28 @@
+package hudson.plugins.gradle.enriched;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Controller-wide {@link LookupLimiter}s, one per Gradle Enterprise server.
+ */
+@Extension
+public class LookupLimiters {
+
+    // Kept under the name of the service it was first introduced in
+    private static final int MAX_CONCURRENT_LOOKUPS_PER_SERVER =
+        Integer.getInteger(ScanDetailService.class.getName() + ".maxConcurrentLookupsPerServer", 4);
+
+    private final ConcurrentMap<String, LookupLimiter> lookupLimiters = new ConcurrentHashMap<>();
+
+    public static LookupLimiters get() {
+        return ExtensionList.lookupSingleton(LookupLimiters.class);
+    }
+
+    public LookupLimiter forServer(String server) {
+        return lookupLimiters.computeIfAbsent(server, s -> new LookupLimiter(MAX_CONCURRENT_LOOKUPS_PER_SERVER));
+    }
+}
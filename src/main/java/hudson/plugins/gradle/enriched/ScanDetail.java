@@ -67,6 +67,12 @@ public class ScanDetail {
         return url;
     }
 
+    void copyAttributesFrom(ScanDetail attributes) {
+        this.projectName = attributes.projectName;
+        this.tasks = attributes.tasks;
+        this.hasFailed = attributes.hasFailed;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,122 @@
+package hudson.plugins.gradle.enriched;
+
+import com.google.common.annotations.VisibleForTesting;
+import hudson.Extension;
+import hudson.ExtensionList;
+
+import javax.annotation.CheckForNull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Controller-wide cache of {@link ScanDetail}s keyed by build scan ID. The data of a published build scan never changes,
+ * so entries are only evicted to bound memory usage, or after a TTL to eventually pick up API access changes.
+ * Build scans which the API reported as not found or forbidden are cached with a shorter TTL.
+ */
+@Extension
+public class ScanDetailCache {
+
+    private static final int MAX_SIZE =
+        Integer.getInteger(ScanDetailCache.class.getName() + ".maxSize", 1000);
+    private static final long TTL_MILLIS =
+        TimeUnit.MINUTES.toMillis(Long.getLong(ScanDetailCache.class.getName() + ".ttlInMinutes", TimeUnit.DAYS.toMinutes(1)));
+    private static final long UNAVAILABLE_TTL_MILLIS =
+        TimeUnit.MINUTES.toMillis(Long.getLong(ScanDetailCache.class.getName() + ".unavailableTtlInMinutes", 10));
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long unavailableTtlMillis;
+    private final LongSupplier clock;
+
+    private final Map<String, Entry> entries;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public ScanDetailCache() {
+        this(MAX_SIZE, TTL_MILLIS, UNAVAILABLE_TTL_MILLIS, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    ScanDetailCache(int maxSize, long ttlMillis, long unavailableTtlMillis, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.unavailableTtlMillis = unavailableTtlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ScanDetailCache.this.maxSize;
+            }
+        };
+    }
+
+    public static ScanDetailCache get() {
+        return ExtensionList.lookupSingleton(ScanDetailCache.class);
+    }
+
+    /**
+     * Returns the cached entry for the build scan, or {@code null} if the build scan hasn't been looked up yet.
+     */
+    @CheckForNull
+    public synchronized Entry getIfPresent(String scanId) {
+        Entry entry = entries.get(scanId);
+        if (entry != null && entry.expiresAt <= clock.getAsLong()) {
+            entries.remove(scanId);
+            entry = null;
+        }
+
+        if (entry == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+    public synchronized void put(String scanId, ScanDetail scanDetail) {
+        entries.put(scanId, new Entry(scanDetail, clock.getAsLong() + ttlMillis));
+    }
+
+    public synchronized void putUnavailable(String scanId) {
+        entries.put(scanId, new Entry(null, clock.getAsLong() + unavailableTtlMillis));
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public static final class Entry {
+
+        private final ScanDetail scanDetail;
+        private final long expiresAt;
+
+        private Entry(ScanDetail scanDetail, long expiresAt) {
+            this.scanDetail = scanDetail;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Empty if the Gradle Enterprise API reported the build scan as not found or forbidden.
+         */
+        public Optional<ScanDetail> getScanDetail() {
+            return Optional.ofNullable(scanDetail);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package hudson.plugins.gradle.enriched;
+
+import com.google.common.annotations.VisibleForTesting;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.init.Terminator;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Fetches {@link ScanDetail}s on a bounded pool of background threads, so that the threads writing the build log
+ * are never blocked by calls to the Gradle Enterprise API.
+ * <p>
+ * A worker stays busy until the lookups of its build scans are done, so that the configured worker threads, queue
+ * size and overflow policy bound the lookups pending at any time, whichever server they go to.
+ */
+@Extension
+public class ScanDetailEnricher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanDetailEnricher.class);
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final RejectedExecutionHandler DISCARD_NEWEST = (task, executor) ->
+        LOGGER.warn("Build scan enrichment queue is full, discarding {}", task);
+
+    private static final RejectedExecutionHandler DISCARD_OLDEST = (task, executor) -> {
+        if (executor.isShutdown()) {
+            return;
+        }
+        Runnable discarded = executor.getQueue().poll();
+        if (discarded != null) {
+            LOGGER.warn("Build scan enrichment queue is full, discarding {}", discarded);
+        }
+        executor.execute(task);
+    };
+
+    // The lookups requested when a page is rendered are dropped rather than run by the request thread, they are
+    // requested again when the page is next rendered
+    private static final RejectedExecutionHandler CALLER_RUNS = (task, executor) -> {
+        if (task instanceof EnrichmentTask && ((EnrichmentTask) task).lazy) {
+            DISCARD_NEWEST.rejectedExecution(task, executor);
+        } else if (!executor.isShutdown()) {
+            task.run();
+        }
+    };
+
+    private final ConcurrentMap<String, Set<EnrichmentTask>> runningTasks = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    public static ScanDetailEnricher get() {
+        return ExtensionList.lookupSingleton(ScanDetailEnricher.class);
+    }
+
+    /**
+     * Schedules the retrieval of the build scan details and returns immediately.
+     * The callback is invoked from a background thread, and only if the details could be fetched.
+     * Nothing is fetched in lazy mode, see {@link ScanDetailService#isLazyEnrichmentEnabled()}.
+     *
+     * @param ownerId the ID of the run the build scan belongs to, used to {@link #cancel(String) cancel} the enrichment
+     */
+    public void enrich(String scanUrl, @CheckForNull String ownerId, ScanDetailService scanDetailService, Consumer<ScanDetail> callback) {
+        enrich(scanUrl, ownerId, null, scanDetailService, callback);
+    }
+
+    public void enrich(String scanUrl,
+                       @CheckForNull String ownerId,
+                       @CheckForNull ScanDetail.BuildToolType buildToolType,
+                       ScanDetailService scanDetailService,
+                       Consumer<ScanDetail> callback) {
+        if (scanUrl == null || !scanDetailService.isEnrichedSummaryEnabled() || scanDetailService.isLazyEnrichmentEnabled()) {
+            return;
+        }
+
+        getExecutor().execute(new EnrichmentTask(Collections.singletonList(scanUrl), ownerId, buildToolType, false, scanDetailService, callback));
+    }
+
+    /**
+     * Schedules the retrieval of the details of several build scans as a single batch, see
+     * {@link ScanDetailService#getScanDetailsAsync(Collection, ScanDetail.BuildToolType)}. The callback is invoked once
+     * per build scan, as soon as its details are fetched.
+     */
+    public void enrichAll(Collection<String> scanUrls,
+                          @CheckForNull String ownerId,
+                          ScanDetailService scanDetailService,
+                          Consumer<ScanDetail> callback) {
+        if (scanUrls.isEmpty() || !scanDetailService.isEnrichedSummaryEnabled() || scanDetailService.isLazyEnrichmentEnabled()) {
+            return;
+        }
+
+        getExecutor().execute(new EnrichmentTask(new ArrayList<>(scanUrls), ownerId, null, false, scanDetailService, callback));
+    }
+
+    /**
+     * Schedules the retrieval of the details of build scans recorded in lazy mode, once they are first requested.
+     * The lookups share the workers and queue of the other enrichments, but are never run by the calling thread.
+     */
+    public void enrichLazily(Collection<String> scanUrls,
+                             @CheckForNull String ownerId,
+                             ScanDetailService scanDetailService,
+                             Consumer<ScanDetail> callback) {
+        if (scanUrls.isEmpty() || !scanDetailService.isEnrichedSummaryEnabled()) {
+            return;
+        }
+
+        getExecutor().execute(new EnrichmentTask(new ArrayList<>(scanUrls), ownerId, null, true, scanDetailService, callback));
+    }
+
+    /**
+     * Drops the queued enrichments of the given run and cancels the running ones: their requests in flight are aborted
+     * and their pending retries cancelled.
+     */
+    public void cancel(String ownerId) {
+        ThreadPoolExecutor currentExecutor;
+        synchronized (this) {
+            currentExecutor = executor;
+        }
+        if (currentExecutor != null) {
+            currentExecutor.getQueue().removeIf(task -> task instanceof EnrichmentTask && ownerId.equals(((EnrichmentTask) task).ownerId));
+        }
+
+        Set<EnrichmentTask> tasks = runningTasks.remove(ownerId);
+        if (tasks != null) {
+            tasks.forEach(EnrichmentTask::cancel);
+        }
+    }
+
+    private void register(EnrichmentTask task) {
+        if (task.ownerId != null) {
+            runningTasks.computeIfAbsent(task.ownerId, id -> Collections.newSetFromMap(new ConcurrentHashMap<>())).add(task);
+        }
+    }
+
+    private void unregister(EnrichmentTask task) {
+        if (task.ownerId != null) {
+            runningTasks.computeIfPresent(task.ownerId, (id, tasks) -> {
+                tasks.remove(task);
+                return tasks.isEmpty() ? null : tasks;
+            });
+        }
+    }
+
+    /**
+     * Replaces the executor when the queue or worker settings change. Already queued scans are still processed by the
+     * previous executor.
+     */
+    public synchronized void reconfigure(EnrichedSummaryConfig config) {
+        if (executor != null && !isConfiguredWith(executor, config)) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    @VisibleForTesting
+    synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = createExecutor(EnrichedSummaryConfig.get());
+        }
+        return executor;
+    }
+
+    @VisibleForTesting
+    synchronized void setExecutor(ThreadPoolExecutor executor) {
+        this.executor = executor;
+    }
+
+    @VisibleForTesting
+    static ThreadPoolExecutor createExecutor(EnrichedSummaryConfig config) {
+        int workerThreads = Math.max(1, config.getEnrichmentWorkerThreads());
+        int queueSize = Math.max(1, config.getEnrichmentQueueSize());
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            workerThreads,
+            workerThreads,
+            KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            new NamingThreadFactory(new DaemonThreadFactory(), "Gradle build scan enrichment"),
+            rejectionHandler(config.getEnrichmentOverflowPolicy()));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static boolean isConfiguredWith(ThreadPoolExecutor executor, EnrichedSummaryConfig config) {
+        int queueCapacity = executor.getQueue().size() + executor.getQueue().remainingCapacity();
+
+        return executor.getMaximumPoolSize() == Math.max(1, config.getEnrichmentWorkerThreads())
+            && queueCapacity == Math.max(1, config.getEnrichmentQueueSize())
+            && executor.getRejectedExecutionHandler() == rejectionHandler(config.getEnrichmentOverflowPolicy());
+    }
+
+    private static RejectedExecutionHandler rejectionHandler(EnrichmentOverflowPolicy policy) {
+        if (policy == null) {
+            return DISCARD_NEWEST;
+        }
+        switch (policy) {
+            case DISCARD_OLDEST:
+                return DISCARD_OLDEST;
+            case CALLER_RUNS:
+                return CALLER_RUNS;
+            case DISCARD_NEWEST:
+            default:
+                return DISCARD_NEWEST;
+        }
+    }
+
+    @Terminator
+    public static void shutdown() {
+        ScanDetailEnricher enricher = ExtensionList.lookup(ScanDetailEnricher.class).get(ScanDetailEnricher.class);
+        if (enricher != null) {
+            synchronized (enricher) {
+                if (enricher.executor != null) {
+                    enricher.executor.shutdownNow();
+                    enricher.executor = null;
+                }
+            }
+        }
+    }
+
+    private final class EnrichmentTask implements Runnable {
+
+        private final List<String> scanUrls;
+        private final String ownerId;
+        private final ScanDetail.BuildToolType buildToolType;
+        private final boolean lazy;
+        private final ScanDetailService scanDetailService;
+        private final Consumer<ScanDetail> callback;
+
+        private volatile Collection<CompletableFuture<Optional<ScanDetail>>> scanDetails;
+        private volatile boolean cancelled;
+
+        private EnrichmentTask(List<String> scanUrls,
+                               String ownerId,
+                               ScanDetail.BuildToolType buildToolType,
+                               boolean lazy,
+                               ScanDetailService scanDetailService,
+                               Consumer<ScanDetail> callback) {
+            this.scanUrls = scanUrls;
+            this.ownerId = ownerId;
+            this.buildToolType = buildToolType;
+            this.lazy = lazy;
+            this.scanDetailService = scanDetailService;
+            this.callback = callback;
+        }
+
+        /**
+         * Waits for the lookups, so that the worker is only available for the next build scans once they are done.
+         */
+        @Override
+        public void run() {
+            register(this);
+            try {
+                // returns before the first attempts, so that they can already be aborted
+                scanDetails = scanDetailService.getScanDetailsAsync(scanUrls, buildToolType).values();
+                if (cancelled) {
+                    cancel();
+                }
+                scanDetails.forEach(scanDetail -> scanDetail.thenAccept(this::notifyCallback));
+                CompletableFuture.allOf(scanDetails.toArray(new CompletableFuture<?>[0])).get();
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | CancellationException e) {
+                // cancelled, the failed lookups are logged by the service
+            } catch (RuntimeException e) {
+                LOGGER.warn("Unable to enrich {}", this, e);
+            } finally {
+                unregister(this);
+            }
+        }
+
+        private void notifyCallback(Optional<ScanDetail> result) {
+            try {
+                result.ifPresent(callback);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Unable to enrich {}", this, e);
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            Collection<CompletableFuture<Optional<ScanDetail>>> current = scanDetails;
+            if (current != null) {
+                current.forEach(scanDetail -> scanDetail.cancel(false));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return scanUrls.size() == 1 ? "build scan " + scanUrls.get(0) : "build scans " + scanUrls;
+        }
+    }
+}
@@ -1,20 +1,46 @@
 package hudson.plugins.gradle.enriched;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
+import hudson.model.Computer;
 import hudson.util.Secret;
+import jenkins.util.Timer;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.DateUtils;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 public class ScanDetailService {
 
@@ -26,96 +52,399 @@ public class ScanDetailService {
     private static final String URL_CONTEXT_PATH_SCAN_ID = "/s/";
     private static final String URL_CONTEXT_PATH_API_BUILDS = "/api/builds/";
 
-    private HttpClientFactory httpClientFactory;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final long MAX_RESPONSE_SIZE_IN_BYTES =
+        Long.getLong(ScanDetailService.class.getName() + ".maxResponseSizeInBytes", 5 * 1024 * 1024);
+
+    private SharedHttpClient sharedHttpClient;
+    private ScanDetailCache scanDetailCache;
+    private Executor executor;
+    private ScheduledExecutorService scheduler;
+    private CircuitBreakers circuitBreakers;
+    private LookupLimiters lookupLimiters;
 
     private final boolean isEnrichedSummaryEnabled;
     private final Secret buildScanAccessToken;
     private final String buildScanServer;
-    private final int httpClientTimeoutInSeconds;
     private final int httpClientMaxRetries;
     private final int httpClientDelayBetweenRetriesInSeconds;
+    private final boolean isParallelAttributesFetchEnabled;
+    private final boolean isLazyEnrichmentEnabled;
+
+    void setSharedHttpClient(SharedHttpClient sharedHttpClient) {
+        this.sharedHttpClient = sharedHttpClient;
+    }
+
+    void setScanDetailCache(ScanDetailCache scanDetailCache) {
+        this.scanDetailCache = scanDetailCache;
+    }
+
+    void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    void setScheduler(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
 
-    void setHttpClientFactory(HttpClientFactory httpClientFactory) {
-        this.httpClientFactory = httpClientFactory;
+    void setCircuitBreakers(CircuitBreakers circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    void setLookupLimiters(LookupLimiters lookupLimiters) {
+        this.lookupLimiters = lookupLimiters;
     }
 
     public ScanDetailService(EnrichedSummaryConfig config) {
         this.isEnrichedSummaryEnabled = config.isEnrichedSummaryEnabled();
         this.buildScanAccessToken = config.getBuildScanAccessKey();
         this.buildScanServer = config.getBuildScanServer();
-        this.httpClientTimeoutInSeconds = config.getHttpClientTimeoutInSeconds();
         this.httpClientMaxRetries = config.getHttpClientMaxRetries();
         this.httpClientDelayBetweenRetriesInSeconds = config.getHttpClientDelayBetweenRetriesInSeconds();
-        this.httpClientFactory = new HttpClientFactory();
+        this.isParallelAttributesFetchEnabled = config.isParallelAttributesFetchEnabled();
+        this.isLazyEnrichmentEnabled = config.isLazyEnrichmentEnabled();
+    }
+
+    public boolean isEnrichedSummaryEnabled() {
+        return isEnrichedSummaryEnabled;
+    }
+
+    /**
+     * Whether build scan details are fetched only when first displayed, instead of while the build is running.
+     */
+    public boolean isLazyEnrichmentEnabled() {
+        return isLazyEnrichmentEnabled;
     }
 
     public Optional<ScanDetail> getScanDetail(String buildScanUrl) {
-        if (isEnrichedSummaryEnabled && buildScanUrl != null) {
-            return Optional.ofNullable(doGetScanDetail(buildScanUrl));
-        }
+        return getScanDetail(buildScanUrl, null);
+    }
 
+    /**
+     * Blocks until the build scan details are fetched, including retries.
+     *
+     * @param buildToolType the build tool which published the build scan, if known by the caller. The build and
+     *                      attributes data are then fetched concurrently.
+     */
+    public Optional<ScanDetail> getScanDetail(String buildScanUrl, @CheckForNull ScanDetail.BuildToolType buildToolType) {
+        CompletableFuture<Optional<ScanDetail>> scanDetail = getScanDetailAsync(buildScanUrl, buildToolType);
+        try {
+            return scanDetail.get();
+        } catch (InterruptedException e) {
+            scanDetail.cancel(false);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            LOGGER.warn("Error fetching build scan details", e);
+        }
         return Optional.empty();
     }
 
-    private ScanDetail doGetScanDetail(String buildScanUrl) {
+    /**
+     * Makes the first attempt on the calling thread. Failed attempts are retried on a background thread after an
+     * exponential backoff, without blocking any thread in between. Cancelling the returned future cancels pending retries
+     * and aborts the requests in flight.
+     */
+    public CompletableFuture<Optional<ScanDetail>> getScanDetailAsync(String buildScanUrl, @CheckForNull ScanDetail.BuildToolType buildToolType) {
+        CompletableFuture<Optional<ScanDetail>> scanDetail = new CompletableFuture<>();
+        lookup(buildScanUrl, buildToolType, scanDetail);
+        return scanDetail;
+    }
+
+    /**
+     * Completes the given future with the result of the lookup. The future is the one the lookup can be cancelled
+     * through, already while the first attempt is running.
+     */
+    private void lookup(String buildScanUrl, @CheckForNull ScanDetail.BuildToolType buildToolType, CompletableFuture<Optional<ScanDetail>> scanDetail) {
+        if (!isEnrichedSummaryEnabled || buildScanUrl == null) {
+            scanDetail.complete(Optional.empty());
+            return;
+        }
+
         if (buildScanUrl.startsWith(GRADLE_ENTERPRISE_PUBLIC_SERVER)) {
             // API is not accessible on public server
-            return null;
+            scanDetail.complete(Optional.empty());
+            return;
+        }
+
+        String scanId = getScanId(buildScanUrl);
+        if (scanId == null) {
+            scanDetail.complete(Optional.empty());
+            return;
+        }
+
+        ScanDetailCache.Entry cached = getScanDetailCache().getIfPresent(scanId);
+        if (cached != null) {
+            scanDetail.complete(cached.getScanDetail());
+            return;
         }
 
-        String baseApiUri = getBaseApiUri(buildScanUrl);
+        String baseApiUri = getBaseApiUri(buildScanUrl, scanId);
         if (null == baseApiUri || baseApiUri.isEmpty()) {
-            return null;
+            scanDetail.complete(Optional.empty());
+            return;
         }
 
-        try (CloseableHttpClient httpclient = httpClientFactory.buildHttpClient(httpClientTimeoutInSeconds, httpClientMaxRetries, httpClientDelayBetweenRetriesInSeconds)) {
-            HttpGet httpGetApiBuilds = buildGetRequest(baseApiUri);
+        new Fetch(buildScanUrl, scanId, baseApiUri, buildToolType, scanDetail).attempt();
+    }
 
-            ScanDetail scanDetail = new ScanDetail(buildScanUrl);
-            try (CloseableHttpResponse responseApiBuilds = httpclient.execute(httpGetApiBuilds)) {
-                if (responseApiBuilds.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
-                    LOGGER.warn("Unable to fetch build scan data [{}]", responseApiBuilds.getStatusLine().getStatusCode());
-                    return null;
-                }
+    /**
+     * Looks up several build scans concurrently, each URL once, with at most
+     * {@code maxConcurrentLookupsPerServer} lookups in flight per Gradle Enterprise server, counting the lookups of
+     * all the builds of the controller, see {@link LookupLimiters}.
+     *
+     * @return the pending lookup of each distinct URL, in the given order. Each future completes as soon as its own
+     * lookup is done, and cancelling it cancels the lookup.
+     */
+    public Map<String, CompletableFuture<Optional<ScanDetail>>> getScanDetailsAsync(Collection<String> buildScanUrls,
+                                                                                   @CheckForNull ScanDetail.BuildToolType buildToolType) {
+        Map<String, CompletableFuture<Optional<ScanDetail>>> scanDetails = new LinkedHashMap<>();
+        for (String buildScanUrl : new LinkedHashSet<>(buildScanUrls)) {
+            if (buildScanUrl == null) {
+                continue;
+            }
+            CompletableFuture<Optional<ScanDetail>> scanDetail = new CompletableFuture<>();
+            scanDetails.put(buildScanUrl, scanDetail);
+        }
 
-                HttpEntity httpEntityApiBuilds = responseApiBuilds.getEntity();
-                if (httpEntityApiBuilds != null) {
-                    String apiBuildsResponse = EntityUtils.toString(httpEntityApiBuilds);
-                    ObjectReader objectReader = MAPPER.readerForUpdating(scanDetail);
-                    scanDetail = objectReader.readValue(apiBuildsResponse);
-                    String suffix = null != scanDetail.getBuildToolType() ? scanDetail.getBuildToolType().getAttributesUrlSuffix() : "unsupported";
-                    HttpGet httpGetBuildAttributes = buildGetRequest(baseApiUri + suffix);
-
-                    try (CloseableHttpResponse responseApiBuildAttributes = httpclient.execute(httpGetBuildAttributes)) {
-                        if (responseApiBuildAttributes.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
-                            LOGGER.warn("Unable to fetch build scan data [{}]", responseApiBuildAttributes.getStatusLine().getStatusCode());
-                            return null;
-                        }
-
-                        HttpEntity httpEntityApiBuildAttributes = responseApiBuildAttributes.getEntity();
-                        if (httpEntityApiBuildAttributes != null) {
-                            String apiBuildAttributesResponse = EntityUtils.toString(httpEntityApiBuildAttributes);
-                            scanDetail = objectReader.readValue(apiBuildAttributesResponse);
-                            return scanDetail;
-                        }
-                    }
+        scanDetails.forEach((buildScanUrl, scanDetail) ->
+            getLookupLimiters().forServer(getServerOf(buildScanUrl)).submit(scanDetail, () -> getExecutor().execute(() -> {
+                try {
+                    lookup(buildScanUrl, buildToolType, scanDetail);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Error fetching build scan details", e);
+                    scanDetail.complete(Optional.empty());
                 }
+            })));
+        return scanDetails;
+    }
+
+    private ScanDetail fetchScanDetail(Fetch fetch) throws IOException {
+        CloseableHttpClient httpclient = getSharedHttpClient().getHttpClient();
+        ScanDetail scanDetail = new ScanDetail(fetch.buildScanUrl);
+
+        return fetch.buildToolType != null || isParallelAttributesFetchEnabled
+            ? fetchConcurrently(httpclient, fetch, fetch.baseApiUri, scanDetail, fetch.buildToolType)
+            : fetchSequentially(httpclient, fetch, fetch.baseApiUri, scanDetail);
+    }
+
+    private ScanDetail fetchSequentially(CloseableHttpClient httpclient, Fetch fetch, String baseApiUri, ScanDetail scanDetail) throws IOException {
+        ObjectReader objectReader = MAPPER.readerForUpdating(scanDetail);
+
+        scanDetail = get(httpclient, fetch, baseApiUri, objectReader);
+        if (scanDetail == null) {
+            return null;
+        }
+
+        return get(httpclient, fetch, baseApiUri + getAttributesUrlSuffix(scanDetail.getBuildToolType()), objectReader);
+    }
+
+    /**
+     * Fires the attributes request(s) alongside the build request. If the build tool is not known up front, the
+     * attributes of every supported build tool are requested and only the matching response is used.
+     */
+    private ScanDetail fetchConcurrently(CloseableHttpClient httpclient, Fetch fetch, String baseApiUri, ScanDetail scanDetail, ScanDetail.BuildToolType expectedBuildToolType) throws IOException {
+        Map<ScanDetail.BuildToolType, CompletableFuture<ScanDetail>> attributesResponses = new EnumMap<>(ScanDetail.BuildToolType.class);
+        for (ScanDetail.BuildToolType buildToolType : ScanDetail.BuildToolType.values()) {
+            if (expectedBuildToolType == null || expectedBuildToolType == buildToolType) {
+                attributesResponses.put(buildToolType, getAsync(httpclient, fetch, baseApiUri + buildToolType.getAttributesUrlSuffix(), attributesReader(scanDetail)));
             }
-        } catch (Exception e) {
-            LOGGER.warn("Error fetching build scan details", e);
         }
 
-        return null;
+        scanDetail = get(httpclient, fetch, baseApiUri, MAPPER.readerForUpdating(scanDetail));
+        if (scanDetail == null) {
+            return null;
+        }
+
+        CompletableFuture<ScanDetail> attributesResponse = attributesResponses.get(scanDetail.getBuildToolType());
+        ScanDetail attributes = attributesResponse != null
+            ? await(attributesResponse)
+            // the caller guessed the wrong build tool
+            : get(httpclient, fetch, baseApiUri + getAttributesUrlSuffix(scanDetail.getBuildToolType()), attributesReader(scanDetail));
+        if (attributes == null) {
+            return null;
+        }
+
+        scanDetail.copyAttributesFrom(attributes);
+        return scanDetail;
+    }
+
+    /**
+     * Attributes fetched concurrently are read into a separate instance, merged once the build data is known.
+     */
+    private static ObjectReader attributesReader(ScanDetail scanDetail) {
+        return MAPPER.readerForUpdating(new ScanDetail(scanDetail.getUrl()));
+    }
+
+    /**
+     * Streams the response body into the reader, so that only the fields mapped by {@link ScanDetail} are materialized.
+     *
+     * @return the updated value, or {@code null} if the response has no body
+     */
+    private ScanDetail get(CloseableHttpClient httpclient, Fetch fetch, String uri, ObjectReader objectReader) throws IOException {
+        HttpGet request = buildGetRequest(uri);
+        fetch.track(request);
+        try (CloseableHttpResponse response = httpclient.execute(request)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode != HttpStatus.SC_OK) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new UnexpectedResponseException(statusCode, getRetryAfterMillis(response));
+            }
+
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                return null;
+            }
+            if (entity.getContentLength() > MAX_RESPONSE_SIZE_IN_BYTES) {
+                throw new SizeLimitedInputStream.LimitExceededException("Response body of " + entity.getContentLength() + " bytes exceeds " + MAX_RESPONSE_SIZE_IN_BYTES + " bytes");
+            }
+
+            try (InputStream content = new SizeLimitedInputStream(entity.getContent(), MAX_RESPONSE_SIZE_IN_BYTES)) {
+                return objectReader.readValue(content);
+            }
+        } finally {
+            fetch.untrack(request);
+        }
+    }
+
+    private CompletableFuture<ScanDetail> getAsync(CloseableHttpClient httpclient, Fetch fetch, String uri, ObjectReader objectReader) {
+        CompletableFuture<ScanDetail> response = new CompletableFuture<>();
+        getExecutor().execute(() -> {
+            try {
+                response.complete(get(httpclient, fetch, uri, objectReader));
+            } catch (Throwable t) {
+                response.completeExceptionally(t);
+            }
+        });
+        return response;
     }
 
-    private String getBaseApiUri(String buildScanUrl) {
+    private static ScanDetail await(CompletableFuture<ScanDetail> response) throws IOException {
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching build scan data");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * @return the delay requested by the {@code Retry-After} header, or -1 if there is none
+     */
+    private static long getRetryAfterMillis(HttpResponse response) {
+        Header retryAfter = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null || retryAfter.getValue() == null) {
+            return -1;
+        }
+
+        String value = retryAfter.getValue().trim();
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(value);
+            return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : -1;
+        }
+    }
+
+    /**
+     * Exponential backoff with equal jitter, starting with the configured delay between retries.
+     */
+    private long getRetryDelayMillis(int attempts) {
+        long baseDelay = TimeUnit.SECONDS.toMillis(httpClientDelayBetweenRetriesInSeconds);
+        long delay = Math.min(MAX_RETRY_DELAY_MILLIS, baseDelay << Math.min(attempts - 1, 30));
+        return delay / 2 + (long) (ThreadLocalRandom.current().nextDouble() * (delay / 2));
+    }
+
+    private static boolean isRetryable(IOException e) {
+        if (e instanceof UnexpectedResponseException) {
+            int statusCode = ((UnexpectedResponseException) e).statusCode;
+            return statusCode == HTTP_TOO_MANY_REQUESTS || statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+        }
+        return !(e instanceof JsonProcessingException) && !(e instanceof SizeLimitedInputStream.LimitExceededException);
+    }
+
+    private String getServerOf(String buildScanUrl) {
+        try {
+            URI server = buildScanServer != null ? URI.create(buildScanServer) : URI.create(buildScanUrl);
+            return server.resolve("/").toASCIIString();
+        } catch (IllegalArgumentException e) {
+            return buildScanUrl;
+        }
+    }
+
+    private static String getServer(String baseApiUri) {
+        return URI.create(baseApiUri).resolve("/").toASCIIString();
+    }
+
+    private static String getAttributesUrlSuffix(ScanDetail.BuildToolType buildToolType) {
+        return null != buildToolType ? buildToolType.getAttributesUrlSuffix() : "unsupported";
+    }
+
+    private SharedHttpClient getSharedHttpClient() {
+        if (sharedHttpClient == null) {
+            sharedHttpClient = SharedHttpClient.get();
+        }
+        return sharedHttpClient;
+    }
+
+    private ScanDetailCache getScanDetailCache() {
+        if (scanDetailCache == null) {
+            scanDetailCache = ScanDetailCache.get();
+        }
+        return scanDetailCache;
+    }
+
+    private Executor getExecutor() {
+        if (executor == null) {
+            executor = Computer.threadPoolForRemoting;
+        }
+        return executor;
+    }
+
+    private ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            scheduler = Timer.get();
+        }
+        return scheduler;
+    }
+
+    private LookupLimiters getLookupLimiters() {
+        if (lookupLimiters == null) {
+            lookupLimiters = LookupLimiters.get();
+        }
+        return lookupLimiters;
+    }
+
+    private CircuitBreakers getCircuitBreakers() {
+        if (circuitBreakers == null) {
+            circuitBreakers = CircuitBreakers.get();
+        }
+        return circuitBreakers;
+    }
+
+    private void cacheIfUnavailable(String scanId, int statusCode) {
+        if (statusCode == HttpStatus.SC_NOT_FOUND || statusCode == HttpStatus.SC_FORBIDDEN) {
+            getScanDetailCache().putUnavailable(scanId);
+        }
+    }
+
+    private static String getScanId(String buildScanUrl) {
         int scanIdStartIndex = buildScanUrl.lastIndexOf(URL_CONTEXT_PATH_SCAN_ID);
         if (scanIdStartIndex < 0) {
             LOGGER.warn("Build scan ID can't be parsed in {}", buildScanUrl);
             return null;
         }
         String scanId = buildScanUrl.substring(scanIdStartIndex + URL_CONTEXT_PATH_SCAN_ID.length());
+        return scanId.isEmpty() ? null : scanId;
+    }
 
+    private String getBaseApiUri(String buildScanUrl, String scanId) {
         try {
             URI baseApiUri = buildScanServer != null ?
                     URI.create(buildScanServer)
@@ -136,4 +465,138 @@ public class ScanDetailService {
         return httpGet;
     }
 
+    /**
+     * A single build scan lookup, retried until it succeeds, fails permanently, or runs out of retries.
+     */
+    private final class Fetch {
+
+        private final String buildScanUrl;
+        private final String scanId;
+        private final String baseApiUri;
+        private final ScanDetail.BuildToolType buildToolType;
+        private final CircuitBreaker circuitBreaker;
+
+        private final CompletableFuture<Optional<ScanDetail>> result;
+
+        // aborted once the lookup is cancelled, or done with the responses still expected
+        private final Set<HttpGet> requestsInFlight = ConcurrentHashMap.newKeySet();
+
+        private int attempts;
+        private volatile Future<?> pendingRetry;
+
+        private Fetch(String buildScanUrl, String scanId, String baseApiUri, ScanDetail.BuildToolType buildToolType,
+                      CompletableFuture<Optional<ScanDetail>> result) {
+            this.buildScanUrl = buildScanUrl;
+            this.result = result;
+            this.scanId = scanId;
+            this.baseApiUri = baseApiUri;
+            this.buildToolType = buildToolType;
+            this.circuitBreaker = getCircuitBreakers().forServer(getServer(baseApiUri));
+
+            result.whenComplete((scanDetail, t) -> {
+                Future<?> retry = pendingRetry;
+                if (retry != null) {
+                    retry.cancel(false);
+                }
+                requestsInFlight.forEach(HttpGet::abort);
+            });
+        }
+
+        private void track(HttpGet request) {
+            requestsInFlight.add(request);
+            if (result.isDone()) {
+                request.abort();
+            }
+        }
+
+        private void untrack(HttpGet request) {
+            requestsInFlight.remove(request);
+        }
+
+        private void attempt() {
+            if (result.isDone()) {
+                return;
+            }
+            if (!circuitBreaker.allowRequest()) {
+                LOGGER.debug("Gradle Enterprise server of {} is unavailable, not fetching build scan data", buildScanUrl);
+                result.complete(Optional.empty());
+                return;
+            }
+
+            attempts++;
+            boolean recorded = false;
+            try {
+                ScanDetail scanDetail = fetchScanDetail(this);
+                circuitBreaker.recordSuccess();
+                recorded = true;
+                if (scanDetail != null) {
+                    getScanDetailCache().put(scanId, scanDetail);
+                }
+                result.complete(Optional.ofNullable(scanDetail));
+            } catch (IOException e) {
+                if (result.isDone()) {
+                    // aborted
+                    return;
+                }
+                recorded = true;
+                if (isRetryable(e)) {
+                    circuitBreaker.recordFailure();
+                    retryOrGiveUp(e);
+                } else {
+                    circuitBreaker.recordSuccess();
+                    giveUp(e);
+                }
+            } catch (RuntimeException e) {
+                circuitBreaker.recordSuccess();
+                recorded = true;
+                giveUp(e);
+            } finally {
+                if (!recorded) {
+                    // aborted, or failed with an error: the server may still be tried again
+                    circuitBreaker.recordAborted();
+                    result.complete(Optional.empty());
+                }
+            }
+        }
+
+        private void retryOrGiveUp(IOException e) {
+            if (attempts > httpClientMaxRetries || circuitBreaker.isOpen()) {
+                giveUp(e);
+                return;
+            }
+
+            long retryAfterMillis = e instanceof UnexpectedResponseException ? ((UnexpectedResponseException) e).retryAfterMillis : -1;
+            long delayMillis = retryAfterMillis >= 0 ? Math.min(retryAfterMillis, MAX_RETRY_DELAY_MILLIS) : getRetryDelayMillis(attempts);
+            LOGGER.debug("Retrying to fetch build scan data of {} in {} ms", buildScanUrl, delayMillis);
+
+            pendingRetry = getScheduler().schedule(() -> getExecutor().execute(this::attempt), delayMillis, TimeUnit.MILLISECONDS);
+            if (result.isDone()) {
+                pendingRetry.cancel(false);
+            }
+        }
+
+        private void giveUp(Exception e) {
+            if (e instanceof UnexpectedResponseException) {
+                int statusCode = ((UnexpectedResponseException) e).statusCode;
+                LOGGER.warn("Unable to fetch build scan data [{}]", statusCode);
+                cacheIfUnavailable(scanId, statusCode);
+            } else {
+                LOGGER.warn("Error fetching build scan details", e);
+            }
+            result.complete(Optional.empty());
+        }
+    }
+
+    private static final class UnexpectedResponseException extends IOException {
+
+        private final int statusCode;
+        private final long retryAfterMillis;
+
+        private UnexpectedResponseException(int statusCode, long retryAfterMillis) {
+            super("Unexpected HTTP status " + statusCode);
+            this.statusCode = statusCode;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+    }
+
 }
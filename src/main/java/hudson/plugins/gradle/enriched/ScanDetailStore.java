@@ -0,0 +1,88 @@
+package hudson.plugins.gradle.enriched;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores the {@link ScanDetail}s of a run in a file next to its {@code build.xml}, one JSON object per line, so that
+ * they are only read when needed rather than every time the run is loaded.
+ * <p>
+ * The file is only ever appended to. A line truncated by a crash while appending is skipped when reading, and ended
+ * before appending the next one.
+ */
+public final class ScanDetailStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanDetailStore.class);
+
+    public static final String FILE_NAME = "gradle-scan-details.jsonl";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ScanDetailStore() {
+    }
+
+    /**
+     * @return the stored details, in the order they were appended, or none if the file does not exist
+     */
+    public static List<ScanDetail> read(File file) throws IOException {
+        List<ScanDetail> scanDetails = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    try {
+                        scanDetails.add(parse(line));
+                    } catch (JsonProcessingException | IllegalArgumentException e) {
+                        LOGGER.warn("Skipping malformed build scan details in {}", file, e);
+                    }
+                }
+            }
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            // no details stored yet
+        }
+        return scanDetails;
+    }
+
+    public static void append(File file, ScanDetail scanDetail) throws IOException {
+        String json = MAPPER.writeValueAsString(scanDetail);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            String line = size > 0 && !endsWithNewLine(channel, size) ? "\n" + json + "\n" : json + "\n";
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            long position = size;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+    }
+
+    private static boolean endsWithNewLine(FileChannel channel, long size) throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        return channel.read(last, size - 1) == 1 && last.get(0) == '\n';
+    }
+
+    private static ScanDetail parse(String line) throws IOException {
+        JsonNode json = MAPPER.readTree(line);
+        JsonNode url = json.get("url");
+        if (url == null || !url.isTextual()) {
+            throw new IllegalArgumentException("Missing build scan URL: " + line);
+        }
+        return MAPPER.readerForUpdating(new ScanDetail(url.asText())).readValue(json);
+    }
+}
@@ -0,0 +1,131 @@
+package hudson.plugins.gradle.enriched;
+
+import com.google.common.annotations.VisibleForTesting;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.init.Terminator;
+import jenkins.util.Timer;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the connection-pooled HTTP client used for all requests to the Gradle Enterprise API.
+ * The client is only rebuilt by {@link EnrichedSummaryConfigChangeListener}, when the HTTP client timeout of the
+ * {@link EnrichedSummaryConfig} changes.
+ */
+@Extension
+public class SharedHttpClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedHttpClient.class);
+
+    // Time left to the requests in flight on a replaced client, on top of its timeout, before it is closed
+    private static final long RETIRED_CLIENT_GRACE_PERIOD_IN_SECONDS = 60;
+
+    private final HttpClientFactory httpClientFactory;
+
+    private ScheduledExecutorService scheduler;
+
+    private CloseableHttpClient httpClient;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private Integer httpClientTimeoutInSeconds;
+
+    public SharedHttpClient() {
+        this(new HttpClientFactory());
+    }
+
+    @VisibleForTesting
+    SharedHttpClient(HttpClientFactory httpClientFactory) {
+        this.httpClientFactory = httpClientFactory;
+    }
+
+    void setScheduler(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public static SharedHttpClient get() {
+        return ExtensionList.lookupSingleton(SharedHttpClient.class);
+    }
+
+    /**
+     * Returns the current shared client, which must not be closed by the caller. A client replaced in the meantime
+     * stays usable long enough for the requests in flight to complete, so callers must not keep it for later requests.
+     */
+    public synchronized CloseableHttpClient getHttpClient() {
+        if (httpClient == null) {
+            if (httpClientTimeoutInSeconds == null) {
+                httpClientTimeoutInSeconds = EnrichedSummaryConfig.get().getHttpClientTimeoutInSeconds();
+            }
+            connectionManager = httpClientFactory.buildConnectionManager();
+            httpClient = httpClientFactory.buildHttpClient(connectionManager, httpClientTimeoutInSeconds);
+        }
+
+        return httpClient;
+    }
+
+    /**
+     * Replaces the client if the timeout changed. The former client is closed once the requests in flight on it
+     * had the time to complete.
+     */
+    public synchronized void reconfigure(int httpClientTimeoutInSeconds) {
+        if (this.httpClientTimeoutInSeconds != null && this.httpClientTimeoutInSeconds == httpClientTimeoutInSeconds) {
+            return;
+        }
+        Integer formerTimeoutInSeconds = this.httpClientTimeoutInSeconds;
+        this.httpClientTimeoutInSeconds = httpClientTimeoutInSeconds;
+
+        if (httpClient != null) {
+            CloseableHttpClient retired = httpClient;
+            httpClient = null;
+            connectionManager = null;
+            getScheduler().schedule(() -> close(retired),
+                2L * formerTimeoutInSeconds + RETIRED_CLIENT_GRACE_PERIOD_IN_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    @CheckForNull
+    public synchronized PoolStats getPoolStats() {
+        return connectionManager == null ? null : connectionManager.getTotalStats();
+    }
+
+    /**
+     * Requests still in flight on the closed client fail and are reported like any other API error.
+     */
+    synchronized void close() {
+        if (httpClient != null) {
+            close(httpClient);
+            httpClient = null;
+            connectionManager = null;
+        }
+    }
+
+    private static void close(CloseableHttpClient httpClient) {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            LOGGER.warn("Error closing HTTP client", e);
+        }
+    }
+
+    private ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            scheduler = Timer.get();
+        }
+        return scheduler;
+    }
+
+    @Terminator
+    public static void shutdown() {
+        SharedHttpClient sharedHttpClient = ExtensionList.lookup(SharedHttpClient.class).get(SharedHttpClient.class);
+        if (sharedHttpClient != null) {
+            sharedHttpClient.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package hudson.plugins.gradle.enriched;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails the read once more than {@code maxBytes} have been read from the underlying stream.
+ * When the limit is exceeded the underlying stream is left open on {@link #close()}, so that an HTTP connection
+ * is aborted instead of being drained.
+ */
+class SizeLimitedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long bytesRead;
+    private boolean limitExceeded;
+
+    SizeLimitedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!limitExceeded) {
+            super.close();
+        }
+    }
+
+    private void count(long n) throws IOException {
+        bytesRead += n;
+        if (bytesRead > maxBytes) {
+            limitExceeded = true;
+            throw new LimitExceededException("Response body exceeds " + maxBytes + " bytes");
+        }
+    }
+
+    static final class LimitExceededException extends IOException {
+
+        LimitExceededException(String message) {
+            super(message);
+        }
+    }
+}
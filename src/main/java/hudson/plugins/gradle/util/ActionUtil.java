@@ -0,0 +1,48 @@
+package hudson.plugins.gradle.util;
+
+import hudson.model.Action;
+import hudson.model.Actionable;
+
+import java.util.function.Supplier;
+
+public final class ActionUtil {
+
+    /**
+     * Striped by target, so that actions of different runs are created concurrently, without holding the lock of
+     * the run itself.
+     */
+    private static final Object[] LOCKS = new Object[64];
+
+    static {
+        for (int i = 0; i < LOCKS.length; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    private ActionUtil() {
+    }
+
+    /**
+     * Returns the action of the given type attached to the target, attaching a new one if there is none yet.
+     * Concurrent callers always get the same action.
+     */
+    public static <T extends Action> T getOrCreate(Actionable target, Class<T> type, Supplier<T> factory) {
+        T action = target.getAction(type);
+        if (action != null) {
+            return action;
+        }
+        synchronized (lockOf(target)) {
+            action = target.getAction(type);
+            if (action == null) {
+                action = factory.get();
+                target.addAction(action);
+            }
+            return action;
+        }
+    }
+
+    private static Object lockOf(Actionable target) {
+        int hash = System.identityHashCode(target);
+        return LOCKS[(hash ^ (hash >>> 16)) & (LOCKS.length - 1)];
+    }
+}
@@ -0,0 +1,72 @@
+package hudson.plugins.gradle.util;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Matches ASCII tokens against raw console bytes, so that a line can be classified without decoding it.
+ */
+public final class AsciiBytes {
+
+    private static final String PRINTABLE_ASCII = " !\"#$%&'()*+,-./0123456789:;<=>?@ABCDEFGHIJKLMNOPQRSTUVWXYZ[\\]^_`abcdefghijklmnopqrstuvwxyz{|}~";
+
+    private AsciiBytes() {
+    }
+
+    public static byte[] of(String token) {
+        return token.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Whether the charset encodes printable ASCII characters as the same single bytes, like UTF-8 and the ISO-8859
+     * family do. Only then can tokens be matched on the raw bytes.
+     */
+    public static boolean isCompatible(Charset charset) {
+        return Arrays.equals(PRINTABLE_ASCII.getBytes(charset), of(PRINTABLE_ASCII));
+    }
+
+    public static boolean startsWith(byte[] b, int len, byte[] prefix) {
+        if (len < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (b[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean contains(byte[] b, int len, byte[] token) {
+        return contains(b, 0, len, token);
+    }
+
+    public static boolean contains(byte[] b, int off, int len, byte[] token) {
+        return indexOf(b, off, off + len, token) >= 0;
+    }
+
+    /**
+     * @param to the index after the last byte to search
+     */
+    public static int indexOf(byte[] b, int from, int to, byte[] token) {
+        if (token.length == 0) {
+            return from;
+        }
+        byte first = token[0];
+        int last = to - token.length;
+        for (int i = from; i <= last; i++) {
+            if (b[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < token.length && b[i + j] == token[j]) {
+                j++;
+            }
+            if (j == token.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,123 @@
+package hudson.plugins.gradle.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Finds any of several ASCII literals in a single pass over a line, with an Aho-Corasick automaton compiled to a
+ * table of transitions. Each character is looked at once, whatever the number of literals.
+ */
+public final class MultiLiteralMatcher {
+
+    private static final int ALPHABET_SIZE = 128;
+    private static final int ROOT = 0;
+
+    private final int[][] transitions;
+    private final boolean[] accepting;
+
+    private MultiLiteralMatcher(int[][] transitions, boolean[] accepting) {
+        this.transitions = transitions;
+        this.accepting = accepting;
+    }
+
+    public static MultiLiteralMatcher of(String... literals) {
+        return of(Arrays.asList(literals));
+    }
+
+    public static MultiLiteralMatcher of(Collection<String> literals) {
+        // trie of the literals
+        List<int[]> transitions = new ArrayList<>();
+        List<Boolean> accepting = new ArrayList<>();
+        transitions.add(newState());
+        accepting.add(false);
+        for (String literal : literals) {
+            if (literal.isEmpty()) {
+                throw new IllegalArgumentException("Literals must not be empty");
+            }
+            int state = ROOT;
+            for (int i = 0; i < literal.length(); i++) {
+                char c = literal.charAt(i);
+                if (c >= ALPHABET_SIZE) {
+                    throw new IllegalArgumentException("Literals must be ASCII: " + literal);
+                }
+                if (transitions.get(state)[c] < 0) {
+                    transitions.get(state)[c] = transitions.size();
+                    transitions.add(newState());
+                    accepting.add(false);
+                }
+                state = transitions.get(state)[c];
+            }
+            accepting.set(state, true);
+        }
+
+        // complete the transitions with the failure links, breadth first
+        int[] failure = new int[transitions.size()];
+        Queue<Integer> queue = new ArrayDeque<>();
+        int[] root = transitions.get(ROOT);
+        for (int c = 0; c < ALPHABET_SIZE; c++) {
+            if (root[c] < 0) {
+                root[c] = ROOT;
+            } else {
+                failure[root[c]] = ROOT;
+                queue.add(root[c]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            accepting.set(state, accepting.get(state) || accepting.get(failure[state]));
+            int[] next = transitions.get(state);
+            for (int c = 0; c < ALPHABET_SIZE; c++) {
+                if (next[c] < 0) {
+                    next[c] = transitions.get(failure[state])[c];
+                } else {
+                    failure[next[c]] = transitions.get(failure[state])[c];
+                    queue.add(next[c]);
+                }
+            }
+        }
+
+        boolean[] acceptingStates = new boolean[accepting.size()];
+        for (int i = 0; i < acceptingStates.length; i++) {
+            acceptingStates[i] = accepting.get(i);
+        }
+        return new MultiLiteralMatcher(transitions.toArray(new int[0][]), acceptingStates);
+    }
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET_SIZE];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    public boolean find(CharSequence text) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            state = c < ALPHABET_SIZE ? transitions[state][c] : ROOT;
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same as {@link #find(CharSequence)}, on the raw bytes of a line encoded with an
+     * {@link AsciiBytes#isCompatible(java.nio.charset.Charset) ASCII compatible} charset.
+     */
+    public boolean find(byte[] b, int off, int len) {
+        int state = ROOT;
+        for (int i = off; i < off + len; i++) {
+            int c = b[i];
+            state = c >= 0 ? transitions[state][c] : ROOT;
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,14 +1,29 @@
 package hudson.plugins.gradle
 
+import hudson.model.Actionable
+import hudson.model.Saveable
 import hudson.plugins.gradle.enriched.ScanDetail
+import hudson.plugins.gradle.enriched.ScanDetailEnricher
+import hudson.plugins.gradle.enriched.ScanDetailService
+import hudson.util.XStream2
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.function.Consumer
 import spock.lang.Specification
 import spock.lang.Subject
 
 @Subject(BuildScanAction.class)
 class BuildScanActionTest extends Specification {
 
-    ScanDetail buildScanDetail() {
-        def scanDetail = new ScanDetail("http://foo.com")
+    @Rule
+    TemporaryFolder tempFolder = new TemporaryFolder()
+
+    ScanDetail buildScanDetail(String url = "http://foo.com") {
+        def scanDetail = new ScanDetail(url)
         scanDetail.buildToolType = ScanDetail.BuildToolType.GRADLE
         scanDetail.buildToolVersion = "7.6"
         scanDetail.hasFailed = false
@@ -32,4 +47,262 @@ class BuildScanActionTest extends Specification {
         scanDetails.size() == 1
         scanDetails.get(0) == buildScanDetail()
     }
+
+    def "Scan detail of an already described build scan can't be added"() {
+        given:
+        def buildScanAction = new BuildScanAction()
+        def scanDetail = buildScanDetail()
+        scanDetail.hasFailed = true
+
+        when:
+        buildScanAction.addScanDetail(buildScanDetail())
+        buildScanAction.addScanDetail(scanDetail)
+
+        then:
+        buildScanAction.getScanDetails() == [buildScanDetail()]
+    }
+
+    def "Scans keep their insertion order and are not duplicated once reloaded"() {
+        given:
+        def buildScanAction = new BuildScanAction()
+        def urls = (1..500).collect { "https://scans.gradle.com/s/${it}".toString() }.reverse()
+        urls.each {
+            buildScanAction.addScanUrl(it)
+            buildScanAction.addScanDetail(buildScanDetail(it))
+        }
+        def xstream = new XStream2()
+
+        when:
+        def reloaded = (BuildScanAction) xstream.fromXML(xstream.toXML(buildScanAction))
+        urls.each {
+            reloaded.addScanUrl(it)
+            reloaded.addScanDetail(buildScanDetail(it))
+        }
+        reloaded.addScanUrl("https://scans.gradle.com/s/new")
+        reloaded.addScanDetail(buildScanDetail("https://scans.gradle.com/s/new"))
+
+        then:
+        reloaded.scanUrls == urls + ["https://scans.gradle.com/s/new"]
+        reloaded.getScanDetails()*.url == urls + ["https://scans.gradle.com/s/new"]
+    }
+
+    def "Scans added concurrently are neither lost nor duplicated"() {
+        given:
+        def buildScanAction = new BuildScanAction()
+        def executor = Executors.newFixedThreadPool(8)
+        def start = new CountDownLatch(1)
+        def branches = (0..<8).collect { branch ->
+            executor.submit {
+                start.await()
+                (0..<200).each {
+                    buildScanAction.addScanUrl("https://scans.gradle.com/s/${it % 100}-${branch % 4}".toString())
+                    buildScanAction.addScanDetail(buildScanDetail("https://scans.gradle.com/s/${it % 100}-${branch % 4}".toString()))
+                }
+            }
+        }
+
+        when:
+        start.countDown()
+        branches*.get()
+
+        then:
+        buildScanAction.scanUrls.size() == 400
+        buildScanAction.scanUrls.toSet().size() == 400
+        buildScanAction.getScanDetails().size() == 400
+        buildScanAction.getScanDetails()*.url.toSet() == buildScanAction.scanUrls.toSet()
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "Scans read or written before an update are not changed by it"() {
+        given:
+        def buildScanAction = new BuildScanAction()
+        buildScanAction.addScanUrl("https://scans.gradle.com/s/1")
+        buildScanAction.addScanDetail(buildScanDetail("https://scans.gradle.com/s/1"))
+        def xstream = new XStream2()
+
+        when:
+        def scanUrls = buildScanAction.scanUrls
+        def scanDetails = buildScanAction.getScanDetails()
+        def xml = xstream.toXML(buildScanAction)
+        buildScanAction.addScanUrl("https://scans.gradle.com/s/2")
+        buildScanAction.addScanDetail(buildScanDetail("https://scans.gradle.com/s/2"))
+
+        then:
+        scanUrls == ["https://scans.gradle.com/s/1"]
+        scanDetails*.url == ["https://scans.gradle.com/s/1"]
+        !xml.contains("https://scans.gradle.com/s/2")
+
+        and:
+        buildScanAction.scanUrls == ["https://scans.gradle.com/s/1", "https://scans.gradle.com/s/2"]
+        xstream.toXML(buildScanAction).contains("https://scans.gradle.com/s/2")
+    }
+
+    def "Scan details are stored in a separate file"() {
+        given:
+        def file = new File(tempFolder.root, "scan-details.jsonl")
+        def buildScanAction = new FileBackedBuildScanAction(scanDetailsFile: file)
+        buildScanAction.addScanUrl("http://foo.com")
+        buildScanAction.addScanDetail(buildScanDetail())
+        def xstream = new XStream2()
+
+        when:
+        def xml = xstream.toXML(buildScanAction)
+        def reloaded = (FileBackedBuildScanAction) xstream.fromXML(xml)
+        reloaded.scanDetailsFile = file
+
+        then:
+        !xml.contains("scanDetails")
+        file.readLines().size() == 1
+        reloaded.getScanDetails() == [buildScanDetail()]
+    }
+
+    def "Scan details kept in the build record are moved to the separate file"() {
+        given:
+        def file = new File(tempFolder.root, "scan-details.jsonl")
+        def buildScanAction = new FileBackedBuildScanAction()
+        buildScanAction.addScanUrl("http://foo.com")
+        buildScanAction.addScanUrl("http://bar.com")
+        buildScanAction.addScanDetail(buildScanDetail())
+        def xstream = new XStream2()
+        def reloaded = (FileBackedBuildScanAction) xstream.fromXML(xstream.toXML(buildScanAction))
+        reloaded.scanDetailsFile = file
+        def target = Mock(Actionable, additionalInterfaces: [Saveable])
+        reloaded.target = target
+
+        when:
+        reloaded.addScanDetail(buildScanDetail("http://bar.com"))
+
+        then:
+        1 * ((Saveable) target).save()
+        file.readLines().size() == 2
+        reloaded.getScanDetails()*.url == ["http://foo.com", "http://bar.com"]
+        !xstream.toXML(reloaded).contains("scanDetails")
+    }
+
+    ScanDetailService lazyScanDetailService(boolean lazy = true) {
+        def scanDetailService = Mock(ScanDetailService)
+        scanDetailService.isEnrichedSummaryEnabled() >> true
+        scanDetailService.isLazyEnrichmentEnabled() >> lazy
+        scanDetailService
+    }
+
+    def "Missing scan details are fetched in the background on first read"() {
+        given:
+        def scanDetailService = lazyScanDetailService()
+        def enricher = Mock(ScanDetailEnricher)
+        def buildScanAction = new BuildScanAction(scanDetailService: scanDetailService, scanDetailEnricher: enricher)
+        buildScanAction.addScanUrl("http://foo.com")
+        Consumer<ScanDetail> callback = null
+
+        when:
+        def scanDetails = buildScanAction.getScanDetails()
+
+        then:
+        1 * enricher.enrichLazily(["http://foo.com"], null, scanDetailService, _) >> { urls, ownerId, service, Consumer<ScanDetail> fetched -> callback = fetched }
+        0 * scanDetailService.getScanDetailsAsync(_, _)
+        scanDetails.empty
+
+        when:
+        buildScanAction.getScanDetails()
+        callback.accept(buildScanDetail())
+
+        then:
+        0 * enricher.enrichLazily(_, _, _, _)
+        buildScanAction.getScanDetails() == [buildScanDetail()]
+    }
+
+    def "Scan details fetched in the background are saved with the build"() {
+        given:
+        def enricher = Mock(ScanDetailEnricher)
+        def buildScanAction = new BuildScanAction(scanDetailService: lazyScanDetailService(), scanDetailEnricher: enricher)
+        def target = Mock(Actionable, additionalInterfaces: [Saveable])
+        buildScanAction.target = target
+        buildScanAction.addScanUrl("http://foo.com")
+
+        when:
+        buildScanAction.getScanDetails()
+
+        then:
+        1 * enricher.enrichLazily(["http://foo.com"], _, _, _) >> { urls, ownerId, service, Consumer<ScanDetail> callback -> callback.accept(buildScanDetail()) }
+        1 * ((Saveable) target).save()
+        buildScanAction.getScanDetails() == [buildScanDetail()]
+    }
+
+    def "Nothing is fetched on read unless lazy enrichment is enabled"() {
+        given:
+        def scanDetailService = lazyScanDetailService(false)
+        def enricher = Mock(ScanDetailEnricher)
+        def buildScanAction = new BuildScanAction(scanDetailService: scanDetailService, scanDetailEnricher: enricher)
+        buildScanAction.addScanUrl("http://foo.com")
+
+        when:
+        def scanDetails = buildScanAction.getScanDetails()
+
+        then:
+        0 * enricher._
+        0 * scanDetailService.getScanDetailsAsync(_, _)
+        scanDetails.empty
+    }
+
+    def "Scans added after the first read are fetched when next read"() {
+        given:
+        def enricher = Mock(ScanDetailEnricher)
+        def buildScanAction = new BuildScanAction(scanDetailService: lazyScanDetailService(), scanDetailEnricher: enricher)
+        buildScanAction.addScanUrl("http://foo.com")
+
+        when:
+        buildScanAction.getScanDetails()
+
+        then:
+        1 * enricher.enrichLazily(["http://foo.com"], _, _, _) >> { urls, ownerId, service, Consumer<ScanDetail> callback -> callback.accept(buildScanDetail()) }
+
+        when:
+        buildScanAction.addScanUrl("http://bar.com")
+        buildScanAction.getScanDetails()
+
+        then:
+        1 * enricher.enrichLazily(["http://bar.com"], _, _, _) >> { urls, ownerId, service, Consumer<ScanDetail> callback -> callback.accept(buildScanDetail("http://bar.com")) }
+        buildScanAction.getScanDetails()*.url == ["http://foo.com", "http://bar.com"]
+    }
+
+    def "Scan details which could not be fetched are fetched again after a delay"() {
+        given:
+        def enricher = Mock(ScanDetailEnricher)
+        long now = 0
+        def buildScanAction = new BuildScanAction(scanDetailService: lazyScanDetailService(), scanDetailEnricher: enricher)
+        buildScanAction.clock = { now }
+        buildScanAction.addScanUrl("http://foo.com")
+
+        when:
+        buildScanAction.getScanDetails()
+
+        then:
+        1 * enricher.enrichLazily(["http://foo.com"], _, _, _)
+
+        when:
+        now = TimeUnit.SECONDS.toMillis(59)
+        buildScanAction.getScanDetails()
+
+        then:
+        0 * enricher.enrichLazily(_, _, _, _)
+
+        when:
+        now = TimeUnit.SECONDS.toMillis(60)
+        buildScanAction.getScanDetails()
+
+        then:
+        1 * enricher.enrichLazily(["http://foo.com"], _, _, _) >> { urls, ownerId, service, Consumer<ScanDetail> callback -> callback.accept(buildScanDetail()) }
+        buildScanAction.getScanDetails() == [buildScanDetail()]
+    }
+
+    static class FileBackedBuildScanAction extends AbstractBuildScanAction {
+        transient File scanDetailsFile
+
+        @Override
+        protected File getScanDetailsFile() {
+            scanDetailsFile
+        }
+    }
 }
@@ -0,0 +1,164 @@
+package hudson.plugins.gradle
+
+import hudson.plugins.gradle.enriched.ScanDetail
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+import spock.lang.Subject
+
+@Subject(BuildScanIndex.class)
+class BuildScanIndexTest extends Specification {
+
+    @Rule
+    TemporaryFolder tempFolder = new TemporaryFolder()
+
+    File file
+
+    def setup() {
+        file = new File(tempFolder.root, BuildScanIndex.FILE_NAME)
+    }
+
+    BuildScanIndex index() {
+        new BuildScanIndex({ file })
+    }
+
+    static BuildScanIndex.Entry entry(String id, String job, int build, long timestamp) {
+        new BuildScanIndex.Entry("https://scans.gradle.com/s/${id}".toString(), job, build, timestamp, null, null, null, null)
+    }
+
+    static ScanDetail detail(String id, String projectName, boolean failed) {
+        def scanDetail = new ScanDetail("https://scans.gradle.com/s/${id}".toString())
+        scanDetail.buildToolType = ScanDetail.BuildToolType.GRADLE
+        scanDetail.buildToolVersion = "7.6"
+        scanDetail.hasFailed = failed
+        scanDetail.projectName = projectName
+        scanDetail
+    }
+
+    def "Build scans are queried most recent first"() {
+        given:
+        def index = index()
+        index.record(entry("a", "folder/app", 1, 1000))
+        index.record(entry("b", "folder/app", 2, 3000).withDetail(detail("b", "app", true)))
+        index.record(entry("c", "lib", 1, 2000).withDetail(detail("c", "lib", false)))
+
+        expect:
+        index.query(new BuildScanIndex.Query())*.scanId == ["b", "c", "a"]
+        index.query(new BuildScanIndex.Query().job("folder/app"))*.scanId == ["b", "a"]
+        index.query(new BuildScanIndex.Query().project("APP"))*.scanId == ["b"]
+        index.query(new BuildScanIndex.Query().failed(false))*.scanId == ["c"]
+        index.query(new BuildScanIndex.Query().since(2000))*.scanId == ["b", "c"]
+        index.query(new BuildScanIndex.Query().limit(1))*.scanId == ["b"]
+    }
+
+    def "Build scans are looked up by scan ID"() {
+        given:
+        def index = index()
+        index.record(entry("a", "app", 1, 1000))
+        index.record(entry("b", "app", 2, 2000).withDetail(detail("b", "app", true)))
+
+        expect:
+        index.query(new BuildScanIndex.Query().scanId("b"))*.scanUrl == ["https://scans.gradle.com/s/b"]
+        index.query(new BuildScanIndex.Query().scanId("b").failed(false)).empty
+        index.query(new BuildScanIndex.Query().scanId("unknown")).empty
+        index().query(new BuildScanIndex.Query().scanId("a"))*.build == [1]
+
+        when:
+        index.remove("app", 2)
+
+        then:
+        index.query(new BuildScanIndex.Query().scanId("b")).empty
+    }
+
+    def "Updates are applied in order in the background, and seen by the next query"() {
+        given:
+        def pending = []
+        def deferred = true
+        def index = new BuildScanIndex({ file }, { Runnable update -> deferred ? pending << update : update.run() })
+
+        when:
+        index.update { index.record(entry("a", "app", 1, 1000)) }
+        index.update { index.remove("app", 1) }
+        index.update { index.record(entry("b", "app", 2, 2000)) }
+
+        then:
+        pending.size() == 3
+        !file.exists()
+
+        when:
+        deferred = false
+        pending.each { it.run() }
+
+        then:
+        index.query(new BuildScanIndex.Query())*.scanId == ["b"]
+    }
+
+    def "Index is reloaded from its file"() {
+        given:
+        def index = index()
+        index.record(entry("a", "app", 1, 1000))
+        index.record(entry("a", "app", 1, 1000).withDetail(detail("a", "app", true)))
+        index.record(entry("a", "app", 1, 1000))
+        index.record(entry("b", "app", 2, 2000))
+        index.record(entry("c", "lib", 1, 3000))
+        index.remove("app", 2)
+
+        when:
+        def reloaded = index().query(new BuildScanIndex.Query())
+
+        then:
+        file.readLines().size() == 5
+        reloaded*.scanId == ["c", "a"]
+        reloaded[1].projectName == "app"
+        reloaded[1].buildToolType == "gradle"
+        reloaded[1].buildToolVersion == "7.6"
+        reloaded[1].failed
+    }
+
+    def "Build scans follow their jobs and folders when deleted or renamed"() {
+        given:
+        def index = index()
+        index.record(entry("a", "folder/app", 1, 1000).withDetail(detail("a", "app", true)))
+        index.record(entry("b", "folder/sub/lib", 1, 2000))
+        index.record(entry("c", "folder-2/app", 1, 3000))
+        index.record(entry("d", "other", 1, 4000))
+
+        when:
+        index.renameJob("folder", "renamed")
+        index.removeJob("other")
+
+        then:
+        index.query(new BuildScanIndex.Query())*.job == ["folder-2/app", "renamed/sub/lib", "renamed/app"]
+        index.query(new BuildScanIndex.Query().job("renamed/app"))[0].failed
+
+        when:
+        index.removeJob("renamed")
+
+        then:
+        index().query(new BuildScanIndex.Query())*.job == ["folder-2/app"]
+    }
+
+    def "Malformed lines are skipped"() {
+        given:
+        def index = index()
+        index.record(entry("a", "app", 1, 1000))
+        file << "{not json\n"
+        index.record(entry("b", "app", 2, 2000))
+
+        expect:
+        index().query(new BuildScanIndex.Query())*.scanId == ["b", "a"]
+    }
+
+    def "Outcome is parsed"() {
+        expect:
+        BuildScanIndex.parseOutcome(null) == null
+        BuildScanIndex.parseOutcome("FAILED")
+        !BuildScanIndex.parseOutcome("succeeded")
+
+        when:
+        BuildScanIndex.parseOutcome("unstable")
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -1,6 +1,7 @@
 package hudson.plugins.gradle
 
 import hudson.model.FreeStyleProject
+import hudson.model.Run
 import hudson.plugins.gradle.injection.MavenSnippets
 import hudson.plugins.timestamper.TimestamperBuildWrapper
 import hudson.tasks.BatchFile
@@ -8,6 +9,7 @@ import hudson.tasks.Maven
 import hudson.tasks.Shell
 import org.apache.commons.lang3.SystemUtils
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition
+import org.jenkinsci.plugins.workflow.graphanalysis.DepthFirstScanner
 import org.jenkinsci.plugins.workflow.job.WorkflowJob
 import org.jvnet.hudson.test.CreateFileBuilder
 import org.jvnet.hudson.test.ExtractResourceSCM
@@ -115,6 +117,28 @@ node {
         new URL(action.scanUrls.get(0))
     }
 
+    def 'findBuildScans only scans the log output since its previous call'() {
+        given:
+        def pipelineJob = j.createProject(WorkflowJob)
+        pipelineJob.setDefinition(new CpsFlowDefinition('''
+echo 'Publishing build scan...'
+echo 'https://scans.gradle.com/s/first'
+assert findBuildScans() == ['https://scans.gradle.com/s/first']
+echo 'Publishing build scan...'
+assert findBuildScans() == ['https://scans.gradle.com/s/first']
+echo 'https://scans.gradle.com/s/second'
+assert findBuildScans() == ['https://scans.gradle.com/s/first', 'https://scans.gradle.com/s/second']
+''', false))
+
+        when:
+        def build = j.buildAndAssertSuccess(pipelineJob)
+
+        then:
+        build.getAction(BuildScanAction).scanUrls == ['https://scans.gradle.com/s/first', 'https://scans.gradle.com/s/second']
+        build.getAction(BuildScanLogCheckpoint).offset > 0
+        BuildScanLogFileScanner.logFileOf(build) == new File(build.rootDir, 'log')
+    }
+
     def 'detects build scan in pipeline log using withGradle'() {
         given:
         gradleInstallationRule.gradleVersion = '5.6.4'
@@ -162,6 +186,15 @@ node {
         action.scanUrls.size() == 2
         new URL(action.scanUrls.get(0))
         new URL(action.scanUrls.get(1))
+        def flowNodes = new DepthFirstScanner().allNodes(build.execution)
+        flowNodes.findAll { action.hasBuildScans(it) }.size() == 2
+        flowNodes.findAll { action.hasBuildScans(it) } == flowNodes.findAll { it.getAction(BuildScanFlowAction) != null }
+
+        when:
+        def reloaded = (BuildScanAction) Run.XSTREAM2.fromXML(Run.XSTREAM2.toXML(action))
+
+        then:
+        flowNodes.findAll { reloaded.hasBuildScans(it) } == flowNodes.findAll { action.hasBuildScans(it) }
     }
 
     def 'does not find build scans in pipeline logs when none have been published'() {
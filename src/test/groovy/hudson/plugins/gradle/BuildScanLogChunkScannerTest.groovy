@@ -0,0 +1,39 @@
+package hudson.plugins.gradle
+
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+
+@Unroll
+@Subject(BuildScanLogChunkScanner)
+class BuildScanLogChunkScannerTest extends Specification {
+
+    @Rule
+    TemporaryFolder tempFolder = new TemporaryFolder()
+
+    @AutoCleanup
+    def backfill = new BuildScanBackfill(4, 64)
+
+    def 'captures build scan urls across chunk boundaries given #log.size() lines'(List<String> log, List<String> expectedUrls) {
+        given:
+        def logFile = tempFolder.newFile("log")
+        logFile.text = log.join("\n")
+
+        expect:
+        backfill.scan(logFile, StandardCharsets.UTF_8) == expectedUrls
+
+        where:
+        log                                                                                                                           || expectedUrls
+        BuildScanLogScannerTest.logWithBuildScans(["https://scans.gradle.com/s/bzb4vn64kx3bc"])                                       || ["https://scans.gradle.com/s/bzb4vn64kx3bc"]
+        BuildScanLogScannerTest.logWithBuildScans(["https://scans.gradle.com/s/bzb4vn64kx3bc", "https://scans.gradle.com/s/asc9wm73ly1do"]) || ["https://scans.gradle.com/s/bzb4vn64kx3bc", "https://scans.gradle.com/s/asc9wm73ly1do"]
+        BuildScanLogScannerTest.logWithBuildScans(["https://scans.gradle.com/s/bzb4vn64kx3bc"], 1010)                                 || []
+        BuildScanLogScannerTest.logWithBuildScans(["https://scans.gradle.com/s/bzb4vn64kx3bc"], 999)                                  || ["https://scans.gradle.com/s/bzb4vn64kx3bc"]
+        BuildScanLogScannerTest.logWithBuildScans(["https://scans.gradle.com/s/bzb4vn64kx3bc"], 1000)                                 || []
+        ["Publishing build scan...", "x" * 200, "https://scans.gradle.com/s/bzb4vn64kx3bc"]                                           || ["https://scans.gradle.com/s/bzb4vn64kx3bc"]
+    }
+}
@@ -0,0 +1,68 @@
+package hudson.plugins.gradle
+
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.nio.charset.StandardCharsets
+
+@Subject(BuildScanLogFileScanner)
+class BuildScanLogFileScannerTest extends Specification {
+
+    @Rule
+    TemporaryFolder tempFolder = new TemporaryFolder()
+
+    def 'captures build scan urls from a log file'() {
+        given:
+        def urls = []
+        def logFile = tempFolder.newFile("log")
+        logFile.text = BuildScanLogScannerTest.logWithBuildScans(["https://scans.gradle.com/s/bzb4vn64kx3bc", "https://scans.gradle.com/s/asc9wm73ly1do"]).join("\r\n") + "\r\n"
+        def scanner = new BuildScanLogFileScanner(new BuildScanLogScanner({ urls << it }), StandardCharsets.UTF_8)
+
+        when:
+        def offset = scanner.scan(logFile, 0)
+
+        then:
+        urls == ["https://scans.gradle.com/s/bzb4vn64kx3bc", "https://scans.gradle.com/s/asc9wm73ly1do"]
+        offset == logFile.length()
+    }
+
+    def 'resumes scanning after the last complete line'() {
+        given:
+        def urls = []
+        def logFile = tempFolder.newFile("log")
+        logFile.text = "Publishing build scan...\nhttps://scans.gradle.com/s/"
+        def logScanner = new BuildScanLogScanner({ urls << it })
+
+        when:
+        def offset = new BuildScanLogFileScanner(logScanner, StandardCharsets.UTF_8).scan(logFile, 0)
+
+        then:
+        urls.empty
+        offset == "Publishing build scan...\n".length()
+
+        when:
+        logFile << "bzb4vn64kx3bc\n"
+        def resumedScanner = new BuildScanLogScanner({ urls << it }, logScanner.linesSinceBuildScanPublishingMessage)
+        new BuildScanLogFileScanner(resumedScanner, StandardCharsets.UTF_8).scan(logFile, offset)
+
+        then:
+        urls == ["https://scans.gradle.com/s/bzb4vn64kx3bc"]
+    }
+
+    def 'only scans plain log files'() {
+        given:
+        def logFile = tempFolder.newFile("log")
+        logFile.text = "some log\n"
+        def compressedLogFile = tempFolder.newFile("log.gz")
+
+        expect:
+        BuildScanLogFileScanner.canScan(logFile, 0, StandardCharsets.UTF_8)
+        !BuildScanLogFileScanner.canScan(logFile, 100, StandardCharsets.UTF_8)
+        !BuildScanLogFileScanner.canScan(logFile, 0, StandardCharsets.UTF_16)
+        !BuildScanLogFileScanner.canScan(compressedLogFile, 0, StandardCharsets.UTF_8)
+        !BuildScanLogFileScanner.canScan(new File(tempFolder.root, "missing"), 0, StandardCharsets.UTF_8)
+        !BuildScanLogFileScanner.canScan(null, 0, StandardCharsets.UTF_8)
+    }
+}
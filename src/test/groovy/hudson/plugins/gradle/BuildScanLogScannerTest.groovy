@@ -28,6 +28,33 @@ class BuildScanLogScannerTest extends Specification {
         logWithBuildScans(["https://scans.gradle.com/s/bzb4vn64kx3bc"], 900)                                        || ["https://scans.gradle.com/s/bzb4vn64kx3bc"]
     }
 
+    def 'extracts build scan url like the former regex given #line'(String line) {
+        given:
+        def matcher = ~/.*(?:\[INFO] )?(https?:\/\/.*\/s\/.*)/
+        def expected = line =~ matcher
+        def expectedUrl = expected.matches() ? Optional.of(expected.group(1)) : Optional.empty()
+
+        expect:
+        BuildScanLogScanner.tryFindBuildScanUrl(line) == expectedUrl
+
+        where:
+        line << [
+            "https://scans.gradle.com/s/bzb4vn64kx3bc",
+            "http://ge.example.com/s/bzb4vn64kx3bc",
+            "[INFO] https://scans.gradle.com/s/bzb4vn64kx3bc",
+            "Build scan: https://ge.example.com/s/bzb4vn64kx3bc and more",
+            "https://first.example.com/s/1 https://second.example.com/s/2",
+            "https://first.example.com/s/1 https://second.example.com/",
+            "https://scans.gradle.com/bzb4vn64kx3bc",
+            "http://s/x",
+            "https:///s/",
+            "no url at all /s/",
+            "httphttps://scans.gradle.com/s/abc",
+            "https://scans.gradle.com/s/abc\u2028",
+            ""
+        ]
+    }
+
     static List<String> logWithBuildScans(List<String> scanLinks, linesBetween = 10) {
         def log = []
 
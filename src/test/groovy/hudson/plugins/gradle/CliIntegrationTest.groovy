@@ -1,9 +1,13 @@
 package hudson.plugins.gradle
 
 import hudson.cli.CLICommandInvoker
+import hudson.model.Item
+import jenkins.model.Jenkins
 import net.sf.json.JSON
 import net.sf.json.JSONArray
 import net.sf.json.JSONObject
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition
+import org.jenkinsci.plugins.workflow.job.WorkflowJob
 
 class CliIntegrationTest extends BaseGradleIntegrationTest {
 
@@ -41,6 +45,93 @@ class CliIntegrationTest extends BaseGradleIntegrationTest {
         assertCLIError(result, 'Requested gradle installation not found: unknown')
     }
 
+    def 'backfill build scans through CLI'() {
+        given:
+        def pipelineJob = j.createProject(WorkflowJob, 'backfilled')
+        pipelineJob.setDefinition(new CpsFlowDefinition('''
+echo 'Publishing build scan...'
+echo 'https://scans.gradle.com/s/backfilled'
+''', false))
+        def build = j.buildAndAssertSuccess(pipelineJob)
+
+        when:
+        CLICommandInvoker.Result result = new CLICommandInvoker(j, 'backfill-build-scans')
+            .authorizedTo(Jenkins.ADMINISTER)
+            .invokeWithArgs('--job=backfilled')
+
+        then:
+        result.returnCode() == 0
+        result.stdout().contains('[1] backfilled #1: 1 build scan(s)')
+        build.getAction(BuildScanAction).scanUrls == ['https://scans.gradle.com/s/backfilled']
+
+        when:
+        result = new CLICommandInvoker(j, 'backfill-build-scans')
+            .authorizedTo(Jenkins.ADMINISTER)
+            .invokeWithArgs('--job=unknown')
+
+        then:
+        assertCLIError(result, 'Requested job not found: unknown')
+    }
+
+    def 'query build scans through CLI'() {
+        given:
+        def pipelineJob = j.createProject(WorkflowJob, 'indexed')
+        pipelineJob.setDefinition(new CpsFlowDefinition("""
+echo 'Publishing build scan...'
+echo 'https://scans.gradle.com/s/indexed'
+""", false))
+        j.buildAndAssertSuccess(pipelineJob)
+        new CLICommandInvoker(j, 'backfill-build-scans')
+            .authorizedTo(Jenkins.ADMINISTER)
+            .invokeWithArgs('--job=indexed')
+
+        when:
+        CLICommandInvoker.Result result = new CLICommandInvoker(j, 'query-build-scans')
+            .authorizedTo(Jenkins.READ, Item.READ)
+            .invokeWithArgs('--job=indexed')
+
+        then:
+        result.returnCode() == 0
+        JSONObject.fromObject(result.stdout().trim()).getString('scanId') == 'indexed'
+
+        when:
+        result = new CLICommandInvoker(j, 'query-build-scans')
+            .authorizedTo(Jenkins.READ, Item.READ)
+            .invokeWithArgs('--scan-id=indexed')
+
+        then:
+        result.returnCode() == 0
+        JSONObject.fromObject(result.stdout().trim()).getString('job') == 'indexed'
+
+        when:
+        result = new CLICommandInvoker(j, 'rebuild-build-scan-index')
+            .authorizedTo(Jenkins.ADMINISTER)
+            .invoke()
+
+        then:
+        result.returnCode() == 0
+        result.stdout().contains('Indexed 1 build scan(s) of 1 build(s)')
+
+        when:
+        result = new CLICommandInvoker(j, 'query-build-scans')
+            .authorizedTo(Jenkins.READ, Item.READ)
+            .invokeWithArgs('--outcome=unstable')
+
+        then:
+        assertCLIError(result, 'Unknown outcome, expected failed or succeeded: unstable')
+
+        when:
+        def webClient = j.createWebClient()
+        webClient.options.throwExceptionOnFailingStatusCode = false
+
+        then:
+        webClient.getPage(j.getURL().toString() + 'buildScanIndex/query?job=indexed').webResponse.statusCode == 200
+        webClient.getPage(j.getURL().toString() + 'buildScanIndex/query?scanId=indexed').webResponse.contentAsString.contains('"job":"indexed"')
+        ['limit=many', 'sinceHours=yesterday', 'outcome=unstable'].every {
+            webClient.getPage(j.getURL().toString() + "buildScanIndex/query?${it}").webResponse.statusCode == 400
+        }
+    }
+
     private static void assertCLIResult(CLICommandInvoker.Result result, String expectedOutput) {
         assert result.returnCode() == 0
 
@@ -0,0 +1,48 @@
+package hudson.plugins.gradle
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+@Subject(ConsoleMetrics)
+class ConsoleMetricsTest extends Specification {
+
+    def 'computes percentiles within a factor of two'() {
+        given:
+        def metrics = new ConsoleMetrics()
+
+        when:
+        (1..98).each { metrics.recordLine(10, 1_000) }
+        metrics.recordLine(10, 50_000)
+        metrics.recordLine(10, 1_000_000)
+
+        then:
+        metrics.getLineProcessingNanos(50) == 1024
+        metrics.getLineProcessingNanos(99) == 65536
+        metrics.getLineProcessingNanos(100) == 1048576
+    }
+
+    def 'reports no percentile without lines'() {
+        expect:
+        new ConsoleMetrics().getLineProcessingNanos(99) == 0
+    }
+
+    def 'sums the metrics of several runs'() {
+        given:
+        def first = new ConsoleMetrics()
+        def second = new ConsoleMetrics()
+        def total = new ConsoleMetrics()
+        first.recordLine(10, 1_000)
+        second.recordLine(20, 2_000)
+        second.recordBuildScan()
+
+        when:
+        first.addTo(total)
+        second.addTo(total)
+
+        then:
+        total.lines == 2
+        total.bytes == 30
+        total.buildScans == 1
+        total.getLineProcessingNanos(100) == 2048
+    }
+}
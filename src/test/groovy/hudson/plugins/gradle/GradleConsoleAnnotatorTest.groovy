@@ -0,0 +1,116 @@
+package hudson.plugins.gradle
+
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.Unroll
+
+import java.nio.charset.Charset
+import java.nio.charset.StandardCharsets
+
+@Unroll
+@Subject(GradleConsoleAnnotator)
+class GradleConsoleAnnotatorTest extends Specification {
+
+    def 'captures build scan urls from #charset output'(Charset charset) {
+        given:
+        def urls = []
+        def out = new ByteArrayOutputStream()
+        def annotator = new GradleConsoleAnnotator(out, charset, true, { urls << it } as BuildScanPublishedListener)
+        def log = BuildScanLogScannerTest.logWithBuildScans(["https://scans.gradle.com/s/bzb4vn64kx3bc"]) + ["BUILD SUCCESSFUL in 1s"]
+
+        when:
+        log.each { annotator.write("${it}\n".getBytes(charset)) }
+        annotator.close()
+
+        then:
+        urls == ["https://scans.gradle.com/s/bzb4vn64kx3bc"]
+
+        where:
+        charset << [StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16]
+    }
+
+    def 'annotates #line'(String line, boolean annotated) {
+        given:
+        def out = new ByteArrayOutputStream()
+        def annotator = new GradleConsoleAnnotator(out, StandardCharsets.UTF_8, true, { } as BuildScanPublishedListener)
+
+        when:
+        annotator.write("${line}\n".getBytes(StandardCharsets.UTF_8))
+        annotator.close()
+
+        then:
+        (out.toString("UTF-8") != "${line}\n") == annotated
+
+        where:
+        line                     || annotated
+        ":compileJava"           || true
+        "> Task :compileJava"    || true
+        "BUILD SUCCESSFUL in 1s" || true
+        "BUILD FAILED in 1s"     || true
+        "Compiling 3 files"      || false
+        " :compileJava"          || false
+    }
+
+    def 'fans lines out to the handlers of #charset output'(Charset charset) {
+        given:
+        def urls = []
+        def lines = []
+        def skipped = 0
+        def deprecations = [
+            isCandidate: { byte[] b, int len -> new String(b, 0, len, charset).contains('Deprecated') },
+            onLine: { String line -> lines << line },
+            onSkippedLine: { skipped++ }
+        ] as ConsoleLineHandler
+        def annotator = new GradleConsoleAnnotator(new ByteArrayOutputStream(), charset, true, { urls << it } as BuildScanPublishedListener, [deprecations])
+        def log = ["> Task :compileJava", "Deprecated Gradle features were used in this build"] +
+            BuildScanLogScannerTest.logWithBuildScans(["https://scans.gradle.com/s/bzb4vn64kx3bc"])
+
+        when:
+        log.each { annotator.write("${it}\n".getBytes(charset)) }
+        annotator.close()
+
+        then:
+        urls == ["https://scans.gradle.com/s/bzb4vn64kx3bc"]
+        lines.contains("Deprecated Gradle features were used in this build")
+        lines.size() + skipped == log.size()
+
+        where:
+        charset << [StandardCharsets.UTF_8, StandardCharsets.UTF_16]
+    }
+
+    def 'ignores a failing handler'() {
+        given:
+        def urls = []
+        def out = new ByteArrayOutputStream()
+        def failing = { throw new IllegalStateException("boom") } as ConsoleLineHandler
+        def annotator = new GradleConsoleAnnotator(out, StandardCharsets.UTF_8, true, { urls << it } as BuildScanPublishedListener, [failing])
+        def log = BuildScanLogScannerTest.logWithBuildScans(["https://scans.gradle.com/s/bzb4vn64kx3bc"])
+
+        when:
+        log.each { annotator.write("${it}\n".getBytes(StandardCharsets.UTF_8)) }
+        annotator.close()
+
+        then:
+        urls == ["https://scans.gradle.com/s/bzb4vn64kx3bc"]
+        out.toString("UTF-8") == log.collect { "${it}\n" }.join()
+    }
+
+    def 'records the cost of processing the console output'() {
+        given:
+        def metrics = new ConsoleMetrics()
+        def annotator = new GradleConsoleAnnotator(new ByteArrayOutputStream(), StandardCharsets.UTF_8, true, { } as BuildScanPublishedListener)
+        annotator.metrics = metrics
+        def log = BuildScanLogScannerTest.logWithBuildScans(["https://scans.gradle.com/s/bzb4vn64kx3bc"]) + ["BUILD SUCCESSFUL in 1s"]
+
+        when:
+        log.each { annotator.write("${it}\n".getBytes(StandardCharsets.UTF_8)) }
+        annotator.close()
+
+        then:
+        metrics.lines == log.size()
+        metrics.bytes == log.sum { it.length() + 1 }
+        metrics.buildScans == 1
+        metrics.getLineProcessingNanos(50) > 0
+        metrics.toJson().getLong("noteEncodingTimeMillis") >= 0
+    }
+}
@@ -0,0 +1,112 @@
+package hudson.plugins.gradle
+
+import hudson.model.FreeStyleBuild
+import hudson.model.FreeStyleProject
+import hudson.model.Item
+import hudson.model.Job
+import hudson.model.Run
+import hudson.model.Saveable
+import hudson.tasks.BatchFile
+import hudson.tasks.Builder
+import hudson.tasks.Shell
+import hudson.util.DescribableList
+import hudson.util.RunList
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.Unroll
+
+@Unroll
+@Subject(GradleConsoleLogFilter)
+class GradleConsoleLogFilterTest extends Specification {
+
+    def 'may run Gradle or Maven is #expected for #description'(String description, List<Builder> builders, boolean expected) {
+        expect:
+        GradleConsoleLogFilter.mayRunGradleOrMaven(builders) == expected
+
+        where:
+        description                 | builders                                                  || expected
+        'no build step'             | []                                                        || false
+        'unrelated shell commands'  | [new Shell('make all'), new BatchFile('nmake')]           || false
+        'Gradle wrapper'            | [new Shell('echo'), new Shell('./gradlew --scan build')]  || true
+        'Maven wrapper'             | [new BatchFile('mvnw.cmd verify')]                        || true
+        'Maven'                     | [new Shell('MVN clean install')]                          || true
+        'unknown build step'        | [Stub(Builder)]                                           || true
+    }
+
+    def 'the console of a freestyle build is #description'(String description, List<Builder> builders, boolean hasBuildScans, boolean expected) {
+        given:
+        def project = Stub(FreeStyleProject)
+        project.getFullName() >> "freestyle-${description}"
+        project.getBuildersList() >> new DescribableList(Saveable.NOOP, builders)
+        project.getBuilds() >> RunList.fromRuns(hasBuildScans ? [completedRun(true)] : [])
+        def build = Stub(FreeStyleBuild)
+        build.getProject() >> project
+        build.getParent() >> project
+
+        expect:
+        GradleConsoleLogFilter.mayPublishBuildScans(build) == expected
+
+        where:
+        description                                     | builders                         | hasBuildScans || expected
+        'decorated when running Gradle'                 | [new Shell('./gradlew build')]   | false         || true
+        'written as is when not running Gradle'         | [new Shell('make all')]          | false         || false
+        'decorated when it produced build scans before' | [new Shell('./build.sh')]        | true          || true
+    }
+
+    def 'the console of a pipeline is #description'(String description, List<Run> builds, boolean expected) {
+        given:
+        def job = Stub(Job)
+        job.getFullName() >> "pipeline-${description}"
+        job.getBuilds() >> RunList.fromRuns(builds)
+        def build = Stub(Run)
+        build.getParent() >> job
+
+        expect:
+        GradleConsoleLogFilter.mayPublishBuildScans(build) == expected
+
+        where:
+        description                                          | builds                                                       || expected
+        'decorated for the first builds'                     | (1..3).collect { completedRun(false) }                       || true
+        'decorated when it produced build scans before'      | (1..9).collect { completedRun(false) } + completedRun(true)  || true
+        'written as is when its last builds produced none'   | (1..10).collect { completedRun(false) }                      || false
+    }
+
+    def 'forgets the jobs which are deleted or renamed'() {
+        given:
+        def builds = (1..10).collect { completedRun(false) }
+        def job = Stub(Job)
+        job.getFullName() >> 'folder/renamed'
+        job.getBuilds() >> { RunList.fromRuns(builds) }
+        def folder = Stub(Item)
+        folder.getFullName() >> 'folder'
+
+        expect:
+        JobsWithBuildScans.hasHistoryWithoutBuildScans(job)
+
+        when:
+        builds.add(0, completedRun(true))
+
+        then:
+        JobsWithBuildScans.hasHistoryWithoutBuildScans(job)
+
+        when:
+        new JobsWithBuildScans.JobListener().onLocationChanged(folder, 'folder', 'other')
+
+        then:
+        JobsWithBuildScans.hasProducedBuildScan(job)
+
+        when:
+        builds.remove(0)
+        new JobsWithBuildScans.JobListener().onDeleted(folder)
+
+        then:
+        JobsWithBuildScans.hasHistoryWithoutBuildScans(job)
+    }
+
+    Run completedRun(boolean hasBuildScan) {
+        def run = Stub(Run)
+        run.isBuilding() >> false
+        run.getAction(BuildScanAction) >> (hasBuildScan ? new BuildScanAction() : null)
+        run
+    }
+}
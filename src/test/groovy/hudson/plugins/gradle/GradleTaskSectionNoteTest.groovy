@@ -0,0 +1,72 @@
+package hudson.plugins.gradle
+
+import hudson.MarkupText
+import hudson.console.ConsoleAnnotator
+import hudson.console.ConsoleNote
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.nio.charset.StandardCharsets
+
+@Subject(GradleTaskSectionNote)
+class GradleTaskSectionNoteTest extends Specification {
+
+    def 'annotates the task headers of the Gradle build only'() {
+        given:
+        def lines = [
+            "Running a shell step",
+            ":not-a-task",
+            "> Task :compileJava",
+            ":jar UP-TO-DATE",
+            "Compiling 3 files",
+            "BUILD SUCCESSFUL in 1s",
+            ":not-a-task-either"
+        ]
+        ConsoleAnnotator<Object> annotator = null
+
+        when:
+        def rendered = lines.withIndex().collect { String line, int i ->
+            def text = new MarkupText(line)
+            if (i == 2) {
+                // the line the note is written before
+                annotator = new GradleTaskSectionNote().annotate(null, text, 0)
+            } else if (annotator != null) {
+                annotator = annotator.annotate(null, text)
+            }
+            text.toString(false)
+        }
+
+        then:
+        rendered == [
+            "Running a shell step",
+            ":not-a-task",
+            "> Task <b class=gradle-task>:compileJava</b>",
+            "<b class=gradle-task>:jar</b> <span class=gradle-task-progress-status>UP-TO-DATE</span>",
+            "Compiling 3 files",
+            "BUILD SUCCESSFUL in 1s",
+            ":not-a-task-either"
+        ]
+        annotator == null
+    }
+
+    def 'writes a single note before the task headers of each Gradle build when annotated at render time'(boolean annotateTasksAtRenderTime, int notes) {
+        given:
+        def out = new ByteArrayOutputStream()
+        def annotator = new GradleConsoleAnnotator(out, StandardCharsets.UTF_8, true, annotateTasksAtRenderTime, { } as BuildScanPublishedListener, [])
+        def log = "Starting a Gradle Daemon\n> Task :compileJava\n:jar UP-TO-DATE\nBUILD SUCCESSFUL in 1s\n> Task :test\nBUILD FAILED in 1s\n"
+
+        when:
+        annotator.write(log.getBytes(StandardCharsets.UTF_8))
+        annotator.close()
+
+        then:
+        def output = out.toString("UTF-8")
+        output.count(ConsoleNote.PREAMBLE_STR) == notes
+        ConsoleNote.removeNotes(output) == log
+
+        where:
+        annotateTasksAtRenderTime || notes
+        true                      || 4 // a section note per build and the outcomes
+        false                     || 5 // a note per task header and the outcomes
+    }
+}
@@ -0,0 +1,147 @@
+package hudson.plugins.gradle
+
+import hudson.plugins.gradle.GradleTaskTimelineAction.TaskOutcome
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+
+@Unroll
+@Subject(GradleTaskTimelineExtractor)
+class GradleTaskTimelineExtractorTest extends Specification {
+
+    @Rule
+    TemporaryFolder tmp = new TemporaryFolder()
+
+    def 'records the task timeline from the console output'() {
+        given:
+        def timeline = new GradleTaskTimelineAction()
+        def outcomes = new GradleTaskOutcomesAction()
+        def time = 0L
+        def handler = new GradleTaskTimelineExtractor.TimelineHandler({ timeline }, { outcomes }, { time })
+        def annotator = new GradleConsoleAnnotator(new ByteArrayOutputStream(), StandardCharsets.UTF_8, true, { } as BuildScanPublishedListener, [handler])
+
+        when:
+        [
+            [0, "> Task :compileJava"],
+            [100, "Compiling 3 files"],
+            [400, "> Task :processResources NO-SOURCE"],
+            [450, "> Task :app:test FROM-CACHE"],
+            [1450, "> Task :app:check FAILED"],
+            [1500, "BUILD FAILED in 2s"],
+            [5000, ":jar UP-TO-DATE"],
+            [5200, "BUILD SUCCESSFUL in 1s"],
+            [5300, "::not a task"]
+        ].each { long offset, String line ->
+            time = offset
+            annotator.write("${line}\n".getBytes(StandardCharsets.UTF_8))
+        }
+        annotator.close()
+
+        then:
+        timeline.tasks.collect { [it.path, it.outcome, it.startOffsetInMillis, it.durationInMillis] } == [
+            [":compileJava", TaskOutcome.EXECUTED, 0L, 400L],
+            [":processResources", TaskOutcome.NO_SOURCE, 400L, 50L],
+            [":app:test", TaskOutcome.FROM_CACHE, 450L, 1000L],
+            [":app:check", TaskOutcome.FAILED, 1450L, 50L],
+            [":jar", TaskOutcome.UP_TO_DATE, 5000L, 200L]
+        ]
+        timeline.getLongestTasks(2)*.path == [":app:test", ":compileJava"]
+        timeline.outcomeCounts == [(TaskOutcome.EXECUTED): 1, (TaskOutcome.NO_SOURCE): 1, (TaskOutcome.FROM_CACHE): 1, (TaskOutcome.FAILED): 1, (TaskOutcome.UP_TO_DATE): 1]
+
+        and:
+        outcomes.executed == 1
+        outcomes.fromCache == 1
+        outcomes.upToDate == 1
+        outcomes.noSource == 1
+        outcomes.failed == 1
+        outcomes.total == 5
+        outcomes.cacheHitRate == 33
+    }
+
+    def 'cache hit rate is #cacheHitRate given #taskOutcomes'(List<TaskOutcome> taskOutcomes, int cacheHitRate) {
+        given:
+        def outcomes = new GradleTaskOutcomesAction()
+
+        when:
+        taskOutcomes.each { outcomes.increment(it) }
+
+        then:
+        outcomes.cacheHitRate == cacheHitRate
+
+        where:
+        taskOutcomes                                                                              || cacheHitRate
+        []                                                                                        || -1
+        [TaskOutcome.UP_TO_DATE, TaskOutcome.NO_SOURCE]                                           || -1
+        [TaskOutcome.FROM_CACHE, TaskOutcome.UP_TO_DATE]                                          || 100
+        [TaskOutcome.FROM_CACHE, TaskOutcome.EXECUTED, TaskOutcome.EXECUTED, TaskOutcome.EXECUTED] || 25
+    }
+
+    def 'grows the timeline beyond its initial capacity'() {
+        given:
+        def timeline = new GradleTaskTimelineAction()
+
+        when:
+        (0..<1000).each { timeline.addTask(":task${it}", TaskOutcome.EXECUTED, it) }
+
+        then:
+        timeline.tasks.size() == 1000
+        timeline.tasks.last().path == ":task999"
+    }
+
+    def 'does not attach any action when no task runs'() {
+        given:
+        def attached = []
+        def handler = new GradleTaskTimelineExtractor.TimelineHandler(
+            { attached << 'timeline'; new GradleTaskTimelineAction() }, { attached << 'outcomes'; new GradleTaskOutcomesAction() }, { 0L })
+        def annotator = new GradleConsoleAnnotator(new ByteArrayOutputStream(), StandardCharsets.UTF_8, true, { } as BuildScanPublishedListener, [handler])
+
+        when:
+        annotator.write("Starting a Gradle Daemon\nBUILD SUCCESSFUL in 1s\n".getBytes(StandardCharsets.UTF_8))
+        annotator.close()
+
+        then:
+        attached.empty
+    }
+
+    def 'stores the timeline in its own file and reads it back'() {
+        given:
+        def file = tmp.newFile(GradleTaskTimelineAction.FILE_NAME)
+        def timeline = new FileBackedTimeline(file)
+
+        when:
+        timeline.addTask(":compileJava", TaskOutcome.EXECUTED, 0)
+        timeline.addTask(":test", TaskOutcome.FROM_CACHE, 400)
+        timeline.addEndOfBuild(900)
+
+        then:
+        file.readLines() == ["0\tEXECUTED\t:compileJava", "400\tFROM_CACHE\t:test", "900\tEND"]
+
+        when:
+        def loaded = new FileBackedTimeline(file)
+
+        then:
+        loaded.tasks.collect { [it.path, it.outcome, it.startOffsetInMillis, it.durationInMillis] } == [
+            [":compileJava", TaskOutcome.EXECUTED, 0L, 400L],
+            [":test", TaskOutcome.FROM_CACHE, 400L, 500L]
+        ]
+        loaded.iconFileName == "clock.png"
+    }
+
+    static class FileBackedTimeline extends GradleTaskTimelineAction {
+
+        private final File file
+
+        FileBackedTimeline(File file) {
+            this.file = file
+        }
+
+        @Override
+        File getFile() {
+            file
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package hudson.plugins.gradle.enriched
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+@Subject(CircuitBreaker.class)
+class CircuitBreakerTest extends Specification {
+
+    long now = 0
+    def circuitBreaker = new CircuitBreaker(2, 1000, { now })
+
+    def 'opens after consecutive failures'() {
+        when:
+        circuitBreaker.recordFailure()
+
+        then:
+        !circuitBreaker.open
+        circuitBreaker.allowRequest()
+
+        when:
+        circuitBreaker.recordFailure()
+
+        then:
+        circuitBreaker.open
+        !circuitBreaker.allowRequest()
+    }
+
+    def 'a success resets the failure count'() {
+        when:
+        circuitBreaker.recordFailure()
+        circuitBreaker.recordSuccess()
+        circuitBreaker.recordFailure()
+
+        then:
+        !circuitBreaker.open
+    }
+
+    def 'lets a single trial request through once the open period is over'() {
+        given:
+        2.times { circuitBreaker.recordFailure() }
+
+        when:
+        now = 1000
+
+        then:
+        circuitBreaker.allowRequest()
+        !circuitBreaker.allowRequest()
+
+        when:
+        circuitBreaker.recordSuccess()
+
+        then:
+        !circuitBreaker.open
+        circuitBreaker.allowRequest()
+    }
+
+    def 'reopens when the trial request fails'() {
+        given:
+        2.times { circuitBreaker.recordFailure() }
+        now = 1000
+        circuitBreaker.allowRequest()
+
+        when:
+        circuitBreaker.recordFailure()
+
+        then:
+        !circuitBreaker.allowRequest()
+
+        when:
+        now = 2000
+
+        then:
+        circuitBreaker.allowRequest()
+    }
+
+    def 'an aborted trial request lets another trial through'() {
+        given:
+        2.times { circuitBreaker.recordFailure() }
+        now = 1000
+        circuitBreaker.allowRequest()
+
+        when:
+        circuitBreaker.recordAborted()
+
+        then:
+        circuitBreaker.open
+        circuitBreaker.allowRequest()
+        !circuitBreaker.allowRequest()
+    }
+}
@@ -58,6 +58,36 @@ class EnrichedSummaryConfigTest extends BaseJenkinsIntegrationTest {
         350                        || FormValidation.Kind.ERROR | "Timeout must be in [0,300]."
     }
 
+    @Unroll
+    def "validates enrichment queue size"() {
+        expect:
+        with(EnrichedSummaryConfig.get().doCheckEnrichmentQueueSize(enrichmentQueueSize)) {
+            kind == expectedKind
+            message == expectedMessage
+        }
+
+        where:
+        enrichmentQueueSize || expectedKind              | expectedMessage
+        100                 || FormValidation.Kind.OK    | null
+        0                   || FormValidation.Kind.ERROR | "Queue size must be in [1,10000]."
+        10001               || FormValidation.Kind.ERROR | "Queue size must be in [1,10000]."
+    }
+
+    @Unroll
+    def "validates enrichment worker threads"() {
+        expect:
+        with(EnrichedSummaryConfig.get().doCheckEnrichmentWorkerThreads(enrichmentWorkerThreads)) {
+            kind == expectedKind
+            message == expectedMessage
+        }
+
+        where:
+        enrichmentWorkerThreads || expectedKind              | expectedMessage
+        4                       || FormValidation.Kind.OK    | null
+        0                       || FormValidation.Kind.ERROR | "Worker threads must be in [1,32]."
+        33                      || FormValidation.Kind.ERROR | "Worker threads must be in [1,32]."
+    }
+
     def "saves enriched summary configuration"() {
         given:
         def webClient = j.createWebClient()
@@ -71,6 +101,10 @@ class EnrichedSummaryConfigTest extends BaseJenkinsIntegrationTest {
         form.getInputByName("_.httpClientTimeoutInSeconds").setValueAttribute("30")
         form.getInputByName("_.httpClientMaxRetries").setValueAttribute("10")
         form.getInputByName("_.httpClientDelayBetweenRetriesInSeconds").setValueAttribute("60")
+        form.getInputByName("_.enrichmentQueueSize").setValueAttribute("500")
+        form.getInputByName("_.enrichmentWorkerThreads").setValueAttribute("4")
+        form.getSelectByName("_.enrichmentOverflowPolicy").setSelectedAttribute("CALLER_RUNS", true)
+        form.getInputByName("_.lazyEnrichmentEnabled").click()
         j.submit(form)
 
         then:
@@ -84,6 +118,11 @@ class EnrichedSummaryConfigTest extends BaseJenkinsIntegrationTest {
             httpClientTimeoutInSeconds == 30
             httpClientMaxRetries == 10
             httpClientDelayBetweenRetriesInSeconds == 60
+
+            enrichmentQueueSize == 500
+            enrichmentWorkerThreads == 4
+            enrichmentOverflowPolicy == EnrichmentOverflowPolicy.CALLER_RUNS
+            lazyEnrichmentEnabled
         }
     }
 
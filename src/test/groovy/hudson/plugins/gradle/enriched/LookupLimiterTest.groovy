@@ -0,0 +1,71 @@
+package hudson.plugins.gradle.enriched
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.CompletableFuture
+
+@Subject(LookupLimiter.class)
+class LookupLimiterTest extends Specification {
+
+    def limiter = new LookupLimiter(2)
+
+    def 'queues the lookups over the limit until running ones complete'() {
+        given:
+        def lookups = (0..<4).collect { new CompletableFuture<Optional<ScanDetail>>() }
+        def started = []
+
+        when:
+        lookups.eachWithIndex { lookup, i -> limiter.submit(lookup) { started << i } }
+
+        then:
+        started == [0, 1]
+        limiter.running == 2
+        limiter.queued == 2
+
+        when:
+        lookups[1].complete(Optional.empty())
+
+        then:
+        started == [0, 1, 2]
+        limiter.running == 2
+        limiter.queued == 1
+
+        when:
+        lookups[0].complete(Optional.empty())
+        lookups[2].complete(Optional.empty())
+        lookups[3].complete(Optional.empty())
+
+        then:
+        started == [0, 1, 2, 3]
+        limiter.running == 0
+        limiter.queued == 0
+    }
+
+    def 'drops queued lookups once cancelled'() {
+        given:
+        def running = [new CompletableFuture<Optional<ScanDetail>>(), new CompletableFuture<Optional<ScanDetail>>()]
+        def cancelled = new CompletableFuture<Optional<ScanDetail>>()
+        def started = []
+        running.each { limiter.submit(it) {} }
+        limiter.submit(cancelled) { started << 'cancelled' }
+
+        when:
+        cancelled.cancel(false)
+        running.each { it.complete(Optional.empty()) }
+
+        then:
+        started.empty
+        limiter.running == 0
+        limiter.queued == 0
+    }
+
+    def 'limits the lookups of all services against the same server'() {
+        given:
+        def limiters = new LookupLimiters()
+
+        expect:
+        limiters.forServer('https://ge.example.com/').is(limiters.forServer('https://ge.example.com/'))
+        !limiters.forServer('https://ge.example.com/').is(limiters.forServer('https://other.example.com/'))
+    }
+}
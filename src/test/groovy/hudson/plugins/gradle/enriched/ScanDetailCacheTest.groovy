@@ -0,0 +1,71 @@
+package hudson.plugins.gradle.enriched
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+@Subject(ScanDetailCache.class)
+class ScanDetailCacheTest extends Specification {
+
+    long now = 0
+    def cache = new ScanDetailCache(2, 100, 10, { now })
+
+    def 'returns cached scan details and counts hits and misses'() {
+        given:
+        def scanDetail = new ScanDetail("https://foo.bar/s/a")
+
+        when:
+        def miss = cache.getIfPresent("a")
+        cache.put("a", scanDetail)
+        def hit = cache.getIfPresent("a")
+
+        then:
+        miss == null
+        hit.scanDetail.get().is(scanDetail)
+        cache.hitCount == 1
+        cache.missCount == 1
+    }
+
+    def 'caches unavailable scans'() {
+        when:
+        cache.putUnavailable("a")
+
+        then:
+        cache.getIfPresent("a").scanDetail == Optional.empty()
+    }
+
+    def 'expires entries after their TTL'() {
+        given:
+        cache.put("a", new ScanDetail("https://foo.bar/s/a"))
+        cache.putUnavailable("b")
+
+        when:
+        now = 10
+
+        then:
+        cache.getIfPresent("a") != null
+        cache.getIfPresent("b") == null
+
+        when:
+        now = 100
+
+        then:
+        cache.getIfPresent("a") == null
+        cache.size() == 0
+    }
+
+    def 'evicts the least recently used entry'() {
+        given:
+        cache.put("a", new ScanDetail("https://foo.bar/s/a"))
+        cache.put("b", new ScanDetail("https://foo.bar/s/b"))
+        cache.getIfPresent("a")
+
+        when:
+        cache.put("c", new ScanDetail("https://foo.bar/s/c"))
+
+        then:
+        cache.size() == 2
+        cache.getIfPresent("a") != null
+        cache.getIfPresent("b") == null
+        cache.getIfPresent("c") != null
+    }
+}
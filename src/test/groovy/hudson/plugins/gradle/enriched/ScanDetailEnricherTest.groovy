@@ -0,0 +1,160 @@
+package hudson.plugins.gradle.enriched
+
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+@Subject(ScanDetailEnricher.class)
+class ScanDetailEnricherTest extends Specification {
+
+    EnrichedSummaryConfig config(int workerThreads, int queueSize, EnrichmentOverflowPolicy policy) {
+        def config = Stub(EnrichedSummaryConfig)
+        config.getEnrichmentWorkerThreads() >> workerThreads
+        config.getEnrichmentQueueSize() >> queueSize
+        config.getEnrichmentOverflowPolicy() >> policy
+        config
+    }
+
+    def 'executor is bounded by the configured settings'() {
+        when:
+        def executor = ScanDetailEnricher.createExecutor(config(3, 7, EnrichmentOverflowPolicy.DISCARD_NEWEST))
+
+        then:
+        executor.maximumPoolSize == 3
+        executor.queue.remainingCapacity() == 7
+
+        cleanup:
+        executor?.shutdownNow()
+    }
+
+    def 'discards the newest task when the queue is full'() {
+        given:
+        def executor = ScanDetailEnricher.createExecutor(config(1, 1, EnrichmentOverflowPolicy.DISCARD_NEWEST))
+        def blocker = new CountDownLatch(1)
+        def executed = Collections.synchronizedList([])
+
+        when:
+        executor.execute { blocker.await() }
+        executor.execute { executed << 'queued' }
+        executor.execute { executed << 'discarded' }
+        blocker.countDown()
+        executor.shutdown()
+        executor.awaitTermination(5, TimeUnit.SECONDS)
+
+        then:
+        executed == ['queued']
+    }
+
+    def 'discards the oldest task when the queue is full'() {
+        given:
+        def executor = ScanDetailEnricher.createExecutor(config(1, 1, EnrichmentOverflowPolicy.DISCARD_OLDEST))
+        def blocker = new CountDownLatch(1)
+        def executed = Collections.synchronizedList([])
+
+        when:
+        executor.execute { blocker.await() }
+        executor.execute { executed << 'discarded' }
+        executor.execute { executed << 'queued' }
+        blocker.countDown()
+        executor.shutdown()
+        executor.awaitTermination(5, TimeUnit.SECONDS)
+
+        then:
+        executed == ['queued']
+    }
+
+    def 'runs the task on the calling thread when the queue is full'() {
+        given:
+        def executor = ScanDetailEnricher.createExecutor(config(1, 1, EnrichmentOverflowPolicy.CALLER_RUNS))
+        def blocker = new CountDownLatch(1)
+        def callerThread = Thread.currentThread()
+        Thread executedOn = null
+
+        when:
+        executor.execute { blocker.await() }
+        executor.execute { }
+        executor.execute { executedOn = Thread.currentThread() }
+
+        then:
+        executedOn == callerThread
+
+        cleanup:
+        blocker.countDown()
+        executor.shutdownNow()
+    }
+
+    def 'applies the overflow policy to the lookups exceeding the workers and the queue'() {
+        given:
+        def enricher = new ScanDetailEnricher()
+        def executor = ScanDetailEnricher.createExecutor(config(1, 1, EnrichmentOverflowPolicy.DISCARD_NEWEST))
+        enricher.setExecutor(executor)
+        def lookups = [:].asSynchronized()
+        def scanDetailService = Stub(ScanDetailService)
+        scanDetailService.isEnrichedSummaryEnabled() >> true
+        scanDetailService.isLazyEnrichmentEnabled() >> false
+        scanDetailService.getScanDetailsAsync(_, _) >> { Collection<String> urls, type ->
+            urls.collectEntries { url -> [(url): lookups[url] = new CompletableFuture<Optional<ScanDetail>>()] }
+        }
+        def enriched = Collections.synchronizedList([])
+        def conditions = new PollingConditions(timeout: 5)
+
+        when:
+        ['running', 'queued', 'discarded'].each {
+            enricher.enrich("https://ge.company.com/s/${it}".toString(), null, scanDetailService, { enriched << it.url })
+        }
+
+        then:
+        conditions.eventually {
+            assert lookups.keySet() == ['https://ge.company.com/s/running'] as Set
+        }
+        executor.queue.size() == 1
+
+        when:
+        lookups['https://ge.company.com/s/running'].complete(Optional.of(new ScanDetail('https://ge.company.com/s/running')))
+
+        then:
+        conditions.eventually {
+            assert lookups.keySet() == ['https://ge.company.com/s/running', 'https://ge.company.com/s/queued'] as Set
+        }
+
+        when:
+        lookups['https://ge.company.com/s/queued'].complete(Optional.empty())
+        executor.shutdown()
+
+        then:
+        executor.awaitTermination(5, TimeUnit.SECONDS)
+        enriched == ['https://ge.company.com/s/running']
+        !lookups.containsKey('https://ge.company.com/s/discarded')
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def 'drops the lazy lookups rather than running them on the calling thread when the queue is full'() {
+        given:
+        def enricher = new ScanDetailEnricher()
+        def executor = ScanDetailEnricher.createExecutor(config(1, 1, EnrichmentOverflowPolicy.CALLER_RUNS))
+        enricher.setExecutor(executor)
+        def blocker = new CountDownLatch(1)
+        def scanDetailService = Mock(ScanDetailService)
+        scanDetailService.isEnrichedSummaryEnabled() >> true
+        scanDetailService.isLazyEnrichmentEnabled() >> true
+
+        when:
+        executor.execute { blocker.await() }
+        executor.execute { }
+        enricher.enrichLazily(['https://ge.company.com/s/dropped'], null, scanDetailService, { })
+
+        then:
+        0 * scanDetailService.getScanDetailsAsync(_, _)
+        executor.queue.size() == 1
+
+        cleanup:
+        blocker.countDown()
+        executor.shutdownNow()
+    }
+}
@@ -1,16 +1,25 @@
 package hudson.plugins.gradle.enriched
 
 import hudson.util.Secret
+import org.apache.http.HttpHeaders
 import org.apache.http.HttpStatus
 import org.apache.http.HttpVersion
 import org.apache.http.client.methods.CloseableHttpResponse
+import org.apache.http.client.methods.HttpGet
+import org.apache.http.impl.execchain.RequestAbortedException
 import org.apache.http.entity.StringEntity
 import org.apache.http.impl.client.CloseableHttpClient
+import org.apache.http.message.BasicHeader
 import org.apache.http.message.BasicStatusLine
 import spock.lang.Specification
 import spock.lang.Subject
 import spock.lang.Unroll
 
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
 @Subject(ScanDetailService.class)
 class ScanDetailServiceTest extends Specification {
 
@@ -22,12 +31,20 @@ class ScanDetailServiceTest extends Specification {
         config
     }
 
+    ScanDetailService newScanDetailService(EnrichedSummaryConfig config) {
+        def scanDetailService = new ScanDetailService(config)
+        scanDetailService.scanDetailCache = new ScanDetailCache()
+        scanDetailService.circuitBreakers = new CircuitBreakers()
+        scanDetailService.lookupLimiters = new LookupLimiters()
+        scanDetailService
+    }
+
     def 'Get scan detail with enriched summary feature disabled'() {
         given:
         def config = Stub(EnrichedSummaryConfig.class)
         config.isEnrichedSummaryEnabled() >> false
         config.getBuildScanAccessKey() >> Secret.fromString("{c2VjcmV0}")
-        def scanDetailService = new ScanDetailService(config)
+        def scanDetailService = newScanDetailService(config)
 
         when:
         def scanDetail = scanDetailService.getScanDetail("https://foo.bar")
@@ -38,7 +55,7 @@ class ScanDetailServiceTest extends Specification {
 
     def 'Get scan detail with malformed build scan URL'() {
         given:
-        def scanDetailService = new ScanDetailService(getTestConfig())
+        def scanDetailService = newScanDetailService(getTestConfig())
 
         when:
         def scanDetail = scanDetailService.getScanDetail("https://foo.bar")
@@ -49,13 +66,13 @@ class ScanDetailServiceTest extends Specification {
 
     def 'Get scan detail with HTTP error on first request'() {
         given:
-        def scanDetailService = new ScanDetailService(getTestConfig())
-        def httpClientFactory = Stub(HttpClientFactory)
-        scanDetailService.httpClientFactory = httpClientFactory
+        def scanDetailService = newScanDetailService(getTestConfig())
+        def sharedHttpClient = Stub(SharedHttpClient)
+        scanDetailService.sharedHttpClient = sharedHttpClient
         def httpClient = Stub(CloseableHttpClient)
         def response = Stub(CloseableHttpResponse)
         response.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_FORBIDDEN, "")
-        httpClientFactory.buildHttpClient(_,_,_) >> httpClient
+        sharedHttpClient.getHttpClient() >> httpClient
         httpClient.execute(_) >> response
 
         when:
@@ -68,9 +85,9 @@ class ScanDetailServiceTest extends Specification {
     @Unroll
     def 'Get scan detail with HTTP error on second request'(String buildToolType) {
         given:
-        def scanDetailService = new ScanDetailService(getTestConfig())
-        def httpClientFactory = Stub(HttpClientFactory)
-        scanDetailService.httpClientFactory = httpClientFactory
+        def scanDetailService = newScanDetailService(getTestConfig())
+        def sharedHttpClient = Stub(SharedHttpClient)
+        scanDetailService.sharedHttpClient = sharedHttpClient
         def httpClient = Stub(CloseableHttpClient)
         def response1 = Stub(CloseableHttpResponse)
         response1.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "")
@@ -83,7 +100,7 @@ class ScanDetailServiceTest extends Specification {
                 """.stripIndent())
         def response2 = Stub(CloseableHttpResponse)
         response2.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_INTERNAL_SERVER_ERROR, "")
-        httpClientFactory.buildHttpClient(_,_,_) >> httpClient
+        sharedHttpClient.getHttpClient() >> httpClient
         httpClient.execute(_) >>> [response1, response2]
 
         when:
@@ -99,9 +116,9 @@ class ScanDetailServiceTest extends Specification {
     @Unroll
     def 'Get scan detail with malformed JSON'() {
         given:
-        def scanDetailService = new ScanDetailService(getTestConfig())
-        def httpClientFactory = Stub(HttpClientFactory)
-        scanDetailService.httpClientFactory = httpClientFactory
+        def scanDetailService = newScanDetailService(getTestConfig())
+        def sharedHttpClient = Stub(SharedHttpClient)
+        scanDetailService.sharedHttpClient = sharedHttpClient
         def httpClient = Stub(CloseableHttpClient)
         def response1 = Stub(CloseableHttpResponse)
         response1.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "")
@@ -115,7 +132,7 @@ class ScanDetailServiceTest extends Specification {
         def response2 = Stub(CloseableHttpResponse)
         response2.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "")
         response2.getEntity() >> new StringEntity("{This is not valid JSON}")
-        httpClientFactory.buildHttpClient(_,_,_) >> httpClient
+        sharedHttpClient.getHttpClient() >> httpClient
         httpClient.execute(_) >>> [response1, response2]
 
         when:
@@ -131,9 +148,9 @@ class ScanDetailServiceTest extends Specification {
     @Unroll
     def 'Get scan detail with unrecognized JSON field'() {
         given:
-        def scanDetailService = new ScanDetailService(getTestConfig())
-        def httpClientFactory = Stub(HttpClientFactory)
-        scanDetailService.httpClientFactory = httpClientFactory
+        def scanDetailService = newScanDetailService(getTestConfig())
+        def sharedHttpClient = Stub(SharedHttpClient)
+        scanDetailService.sharedHttpClient = sharedHttpClient
         def httpClient = Stub(CloseableHttpClient)
         def response1 = Stub(CloseableHttpResponse)
         response1.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "")
@@ -147,9 +164,9 @@ class ScanDetailServiceTest extends Specification {
         def response2 = Stub(CloseableHttpResponse)
         response2.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "")
         response2.getEntity() >> new StringEntity(httpResponseBody)
-        httpClientFactory.buildHttpClient(_,_,_) >> httpClient
+        sharedHttpClient.getHttpClient() >> httpClient
         httpClient.execute(_) >>> [response1, response2]
-        httpClientFactory.buildHttpClient(_,_,_) >> httpClient
+        sharedHttpClient.getHttpClient() >> httpClient
 
         when:
         def scanDetailResult = scanDetailService.getScanDetail("https://foo.bar/s/scanId")
@@ -172,9 +189,9 @@ class ScanDetailServiceTest extends Specification {
     @Unroll
     def 'Get scan detail'(String buildToolType, String httpResponseBody) {
         given:
-        def scanDetailService = new ScanDetailService(getTestConfig())
-        def httpClientFactory = Stub(HttpClientFactory)
-        scanDetailService.httpClientFactory = httpClientFactory
+        def scanDetailService = newScanDetailService(getTestConfig())
+        def sharedHttpClient = Stub(SharedHttpClient)
+        scanDetailService.sharedHttpClient = sharedHttpClient
         def httpClient = Stub(CloseableHttpClient)
         def response1 = Stub(CloseableHttpResponse)
         response1.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "")
@@ -189,7 +206,7 @@ class ScanDetailServiceTest extends Specification {
         response2.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "")
         response2.getEntity() >> new StringEntity(httpResponseBody)
         httpClient.execute(_) >>> [response1, response2]
-        httpClientFactory.buildHttpClient(_,_,_) >> httpClient
+        sharedHttpClient.getHttpClient() >> httpClient
 
         when:
         def scanDetailResult = scanDetailService.getScanDetail("https://foo.bar/s/scanId")
@@ -209,4 +226,292 @@ class ScanDetailServiceTest extends Specification {
         "maven"       | '{"topLevelProjectName":"project","requestedGoals":["clean","build"],"hasFailed":false}'
     }
 
+    def 'Get scan detail is served from the cache on subsequent lookups'() {
+        given:
+        def scanDetailService = newScanDetailService(getTestConfig())
+        def sharedHttpClient = Stub(SharedHttpClient)
+        scanDetailService.sharedHttpClient = sharedHttpClient
+        def httpClient = Mock(CloseableHttpClient)
+        def response1 = Stub(CloseableHttpResponse)
+        response1.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "")
+        response1.getEntity() >> new StringEntity('{"buildToolType": "gradle", "buildToolVersion": "7.5.1"}')
+        def response2 = Stub(CloseableHttpResponse)
+        response2.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "")
+        response2.getEntity() >> new StringEntity('{"rootProjectName":"project","requestedTasks":["build"],"hasFailed":false}')
+        sharedHttpClient.getHttpClient() >> httpClient
+
+        when:
+        def first = scanDetailService.getScanDetail("https://foo.bar/s/scanId")
+        def second = scanDetailService.getScanDetail("https://foo.bar/s/scanId")
+
+        then:
+        2 * httpClient.execute(_) >>> [response1, response2]
+        first.get().projectName == "project"
+        second.get().is(first.get())
+    }
+
+    @Unroll
+    def 'Get scan detail caches HTTP #statusCode responses'() {
+        given:
+        def scanDetailService = newScanDetailService(getTestConfig())
+        def sharedHttpClient = Stub(SharedHttpClient)
+        scanDetailService.sharedHttpClient = sharedHttpClient
+        def httpClient = Mock(CloseableHttpClient)
+        def response = Stub(CloseableHttpResponse)
+        response.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, statusCode, "")
+        sharedHttpClient.getHttpClient() >> httpClient
+
+        when:
+        scanDetailService.getScanDetail("https://foo.bar/s/scanId")
+        def scanDetail = scanDetailService.getScanDetail("https://foo.bar/s/scanId")
+
+        then:
+        expectedRequests * httpClient.execute(_) >> response
+        scanDetail == Optional.empty()
+
+        where:
+        statusCode                        || expectedRequests
+        HttpStatus.SC_NOT_FOUND           || 1
+        HttpStatus.SC_FORBIDDEN           || 1
+        HttpStatus.SC_SERVICE_UNAVAILABLE || 2
+    }
+
+    @Unroll
+    def 'Get scan detail fetches #buildToolType attributes in parallel (known build tool: #knownBuildToolType)'() {
+        given:
+        def config = getTestConfig()
+        config.isParallelAttributesFetchEnabled() >> true
+        def scanDetailService = newScanDetailService(config)
+        def executor = Executors.newFixedThreadPool(2)
+        scanDetailService.executor = executor
+        def sharedHttpClient = Stub(SharedHttpClient)
+        scanDetailService.sharedHttpClient = sharedHttpClient
+        def httpClient = Stub(CloseableHttpClient)
+        def buildsResponse = Stub(CloseableHttpResponse)
+        buildsResponse.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "")
+        buildsResponse.getEntity() >> new StringEntity("{\"buildToolType\": \"${buildToolType}\", \"buildToolVersion\": \"7.5.1\"}")
+        def attributesResponse = Stub(CloseableHttpResponse)
+        attributesResponse.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "")
+        attributesResponse.getEntity() >> new StringEntity('{"rootProjectName":"project","topLevelProjectName":"project","requestedTasks":["build"],"hasFailed":true}')
+        def notFoundResponse = Stub(CloseableHttpResponse)
+        notFoundResponse.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_NOT_FOUND, "")
+        httpClient.execute({ it.URI.path == '/api/builds/scanId' }) >> buildsResponse
+        httpClient.execute({ it.URI.path == "/api/builds/scanId/${buildToolType}-attributes" }) >> attributesResponse
+        httpClient.execute({ it.URI.path == "/api/builds/scanId/${otherBuildToolType}-attributes" }) >> notFoundResponse
+        sharedHttpClient.getHttpClient() >> httpClient
+
+        when:
+        def scanDetailResult = scanDetailService.getScanDetail("https://foo.bar/s/scanId", knownBuildToolType)
+
+        then:
+        def scanDetail = scanDetailResult.get()
+        scanDetail.buildToolType.toString() == buildToolType.toUpperCase()
+        scanDetail.buildToolVersion == "7.5.1"
+        scanDetail.projectName == "project"
+        scanDetail.tasks == [ "build" ]
+        scanDetail.hasFailed
+
+        cleanup:
+        executor.shutdownNow()
+
+        where:
+        buildToolType | otherBuildToolType | knownBuildToolType
+        "gradle"      | "maven"            | null
+        "maven"       | "gradle"           | null
+        "gradle"      | "maven"            | ScanDetail.BuildToolType.GRADLE
+        "maven"       | "gradle"           | ScanDetail.BuildToolType.GRADLE
+    }
+
+    def 'Get scan detail retries server errors in the background'() {
+        given:
+        def config = getTestConfig()
+        config.getHttpClientMaxRetries() >> 2
+        def scanDetailService = newScanDetailService(config)
+        def scheduler = Executors.newSingleThreadScheduledExecutor()
+        scanDetailService.scheduler = scheduler
+        scanDetailService.executor = scheduler
+        def sharedHttpClient = Stub(SharedHttpClient)
+        scanDetailService.sharedHttpClient = sharedHttpClient
+        def httpClient = Mock(CloseableHttpClient)
+        def unavailableResponse = Stub(CloseableHttpResponse)
+        unavailableResponse.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_SERVICE_UNAVAILABLE, "")
+        unavailableResponse.getFirstHeader(HttpHeaders.RETRY_AFTER) >> new BasicHeader(HttpHeaders.RETRY_AFTER, "0")
+        def buildsResponse = Stub(CloseableHttpResponse)
+        buildsResponse.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "")
+        buildsResponse.getEntity() >> new StringEntity('{"buildToolType": "gradle", "buildToolVersion": "7.5.1"}')
+        def attributesResponse = Stub(CloseableHttpResponse)
+        attributesResponse.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "")
+        attributesResponse.getEntity() >> new StringEntity('{"rootProjectName":"project","requestedTasks":["build"],"hasFailed":false}')
+        sharedHttpClient.getHttpClient() >> httpClient
+
+        when:
+        def scanDetail = scanDetailService.getScanDetailAsync("https://foo.bar/s/scanId", null).get(5, TimeUnit.SECONDS)
+
+        then:
+        3 * httpClient.execute(_) >>> [unavailableResponse, buildsResponse, attributesResponse]
+        scanDetail.get().projectName == "project"
+
+        cleanup:
+        scheduler.shutdownNow()
+    }
+
+    def 'Get scan detail does not retry once cancelled'() {
+        given:
+        def config = getTestConfig()
+        config.getHttpClientMaxRetries() >> 2
+        config.getHttpClientDelayBetweenRetriesInSeconds() >> 60
+        def scanDetailService = newScanDetailService(config)
+        def scheduler = Executors.newSingleThreadScheduledExecutor()
+        scanDetailService.scheduler = scheduler
+        scanDetailService.executor = scheduler
+        def sharedHttpClient = Stub(SharedHttpClient)
+        scanDetailService.sharedHttpClient = sharedHttpClient
+        def httpClient = Mock(CloseableHttpClient)
+        def response = Stub(CloseableHttpResponse)
+        response.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_BAD_GATEWAY, "")
+        sharedHttpClient.getHttpClient() >> httpClient
+
+        when:
+        def scanDetail = scanDetailService.getScanDetailAsync("https://foo.bar/s/scanId", null)
+        scanDetail.cancel(false)
+
+        then:
+        1 * httpClient.execute(_) >> response
+        scanDetail.cancelled
+        scheduler.queue.every { it.cancelled }
+
+        cleanup:
+        scheduler.shutdownNow()
+    }
+
+    def 'Cancelling a batched lookup aborts its request in flight'() {
+        given:
+        def scanDetailService = newScanDetailService(getTestConfig())
+        def executor = Executors.newSingleThreadExecutor()
+        scanDetailService.executor = executor
+        def sharedHttpClient = Stub(SharedHttpClient)
+        scanDetailService.sharedHttpClient = sharedHttpClient
+        def httpClient = Mock(CloseableHttpClient)
+        sharedHttpClient.getHttpClient() >> httpClient
+        def requestSent = new CountDownLatch(1)
+        def request = new CompletableFuture<HttpGet>()
+
+        when:
+        def scanDetail = scanDetailService.getScanDetailsAsync(["https://foo.bar/s/scanId"], null).values().first()
+        requestSent.await(5, TimeUnit.SECONDS)
+        scanDetail.cancel(false)
+
+        then:
+        1 * httpClient.execute(_) >> { HttpGet get ->
+            request.complete(get)
+            requestSent.countDown()
+            while (!get.aborted) {
+                Thread.sleep(10)
+            }
+            throw new RequestAbortedException("Request aborted")
+        }
+        request.get(5, TimeUnit.SECONDS).aborted
+        scanDetail.cancelled
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def 'Cancelling the trial request of an open circuit lets the next request through'() {
+        given:
+        def scanDetailService = newScanDetailService(getTestConfig())
+        def circuitBreaker = new CircuitBreaker(1, 0, { 0L })
+        circuitBreaker.recordFailure()
+        def circuitBreakers = Stub(CircuitBreakers)
+        circuitBreakers.forServer(_) >> circuitBreaker
+        scanDetailService.circuitBreakers = circuitBreakers
+        def executor = Executors.newSingleThreadExecutor()
+        scanDetailService.executor = executor
+        def sharedHttpClient = Stub(SharedHttpClient)
+        scanDetailService.sharedHttpClient = sharedHttpClient
+        def httpClient = Mock(CloseableHttpClient)
+        sharedHttpClient.getHttpClient() >> httpClient
+        def requestSent = new CountDownLatch(1)
+        def requestAborted = new CountDownLatch(1)
+
+        when:
+        def scanDetail = scanDetailService.getScanDetailsAsync(["https://foo.bar/s/scanId"], null).values().first()
+        requestSent.await(5, TimeUnit.SECONDS)
+        scanDetail.cancel(false)
+        requestAborted.await(5, TimeUnit.SECONDS)
+        executor.shutdown()
+        executor.awaitTermination(5, TimeUnit.SECONDS)
+
+        then:
+        1 * httpClient.execute(_) >> { HttpGet get ->
+            requestSent.countDown()
+            while (!get.aborted) {
+                Thread.sleep(10)
+            }
+            requestAborted.countDown()
+            throw new RequestAbortedException("Request aborted")
+        }
+        circuitBreaker.open
+        circuitBreaker.allowRequest()
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def 'Get scan detail skips a server whose circuit is open'() {
+        given:
+        def scanDetailService = newScanDetailService(getTestConfig())
+        scanDetailService.circuitBreakers.forServer("https://foo.bar/").with {
+            5.times { recordFailure() }
+        }
+        def sharedHttpClient = Stub(SharedHttpClient)
+        scanDetailService.sharedHttpClient = sharedHttpClient
+        def httpClient = Mock(CloseableHttpClient)
+        sharedHttpClient.getHttpClient() >> httpClient
+
+        when:
+        def scanDetail = scanDetailService.getScanDetail("https://foo.bar/s/scanId")
+
+        then:
+        0 * httpClient.execute(_)
+        scanDetail == Optional.empty()
+    }
+
+    def 'Get scan details looks up each build scan once'() {
+        given:
+        def scanDetailService = newScanDetailService(getTestConfig())
+        def executor = Executors.newFixedThreadPool(2)
+        scanDetailService.executor = executor
+        def sharedHttpClient = Stub(SharedHttpClient)
+        scanDetailService.sharedHttpClient = sharedHttpClient
+        def httpClient = Mock(CloseableHttpClient)
+        sharedHttpClient.getHttpClient() >> httpClient
+
+        when:
+        def scanDetails = scanDetailService.getScanDetailsAsync([
+            "https://foo.bar/s/scan1", "https://foo.bar/s/scan2", "https://foo.bar/s/scan1"
+        ], null)
+        def results = scanDetails.collectEntries { url, scanDetail -> [(url): scanDetail.get(5, TimeUnit.SECONDS)] }
+
+        then:
+        2 * httpClient.execute({ it.URI.path ==~ '/api/builds/scan[12]' }) >> {
+            okResponse('{"buildToolType": "gradle", "buildToolVersion": "7.5.1"}')
+        }
+        2 * httpClient.execute({ it.URI.path ==~ '/api/builds/scan[12]/gradle-attributes' }) >> { args ->
+            okResponse("{\"rootProjectName\":\"${args[0].URI.path.split('/')[3]}\",\"requestedTasks\":[\"build\"],\"hasFailed\":false}")
+        }
+        results.keySet() as List == ["https://foo.bar/s/scan1", "https://foo.bar/s/scan2"]
+        results["https://foo.bar/s/scan1"].get().projectName == "scan1"
+        results["https://foo.bar/s/scan2"].get().projectName == "scan2"
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    CloseableHttpResponse okResponse(String body) {
+        def response = Stub(CloseableHttpResponse)
+        response.getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "")
+        response.getEntity() >> new StringEntity(body)
+        response
+    }
 }
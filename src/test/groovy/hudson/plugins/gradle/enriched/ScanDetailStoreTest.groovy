@@ -0,0 +1,62 @@
+package hudson.plugins.gradle.enriched
+
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+import spock.lang.Subject
+
+@Subject(ScanDetailStore)
+class ScanDetailStoreTest extends Specification {
+
+    @Rule
+    TemporaryFolder tempFolder = new TemporaryFolder()
+
+    def 'reads the appended scan details'() {
+        given:
+        def file = new File(tempFolder.root, ScanDetailStore.FILE_NAME)
+        def gradle = new ScanDetail('https://scans.gradle.com/s/bzb4vn64kx3bc')
+        gradle.projectName = 'foo'
+        gradle.buildToolType = ScanDetail.BuildToolType.GRADLE
+        gradle.buildToolVersion = '7.6'
+        gradle.tasks = ['clean', 'build']
+        gradle.hasFailed = true
+        def maven = new ScanDetail('https://scans.gradle.com/s/asc9wm73ly1do')
+        maven.buildToolType = ScanDetail.BuildToolType.MAVEN
+
+        when:
+        ScanDetailStore.append(file, gradle)
+        ScanDetailStore.append(file, maven)
+
+        then:
+        ScanDetailStore.read(file) == [gradle, maven]
+    }
+
+    def 'skips truncated lines'() {
+        given:
+        def file = new File(tempFolder.root, ScanDetailStore.FILE_NAME)
+        ScanDetailStore.append(file, new ScanDetail('https://scans.gradle.com/s/bzb4vn64kx3bc'))
+        file << '{"url":"https://scans.gradle.com/s/asc9'
+
+        expect:
+        ScanDetailStore.read(file)*.url == ['https://scans.gradle.com/s/bzb4vn64kx3bc']
+    }
+
+    def 'appends after a truncated line'() {
+        given:
+        def file = new File(tempFolder.root, ScanDetailStore.FILE_NAME)
+        ScanDetailStore.append(file, new ScanDetail('https://scans.gradle.com/s/bzb4vn64kx3bc'))
+        file << '{"url":"https://scans.gradle.com/s/asc9'
+
+        when:
+        ScanDetailStore.append(file, new ScanDetail('https://scans.gradle.com/s/asc9wm73ly1do'))
+
+        then:
+        ScanDetailStore.read(file)*.url == ['https://scans.gradle.com/s/bzb4vn64kx3bc', 'https://scans.gradle.com/s/asc9wm73ly1do']
+        file.readLines().size() == 3
+    }
+
+    def 'reads no scan details if there is no file'() {
+        expect:
+        ScanDetailStore.read(new File(tempFolder.root, 'missing.jsonl')).isEmpty()
+    }
+}
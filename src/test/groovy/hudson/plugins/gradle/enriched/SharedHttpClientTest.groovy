@@ -0,0 +1,83 @@
+package hudson.plugins.gradle.enriched
+
+import org.apache.http.impl.client.CloseableHttpClient
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+@Subject(SharedHttpClient.class)
+class SharedHttpClientTest extends Specification {
+
+    def httpClientFactory = Mock(HttpClientFactory)
+    def scheduler = Mock(ScheduledExecutorService)
+    def sharedHttpClient = new SharedHttpClient(httpClientFactory)
+
+    def setup() {
+        sharedHttpClient.setScheduler(scheduler)
+        sharedHttpClient.reconfigure(1)
+    }
+
+    def 'reuses the client while the settings are unchanged'() {
+        given:
+        def httpClient = Mock(CloseableHttpClient)
+
+        when:
+        def first = sharedHttpClient.getHttpClient()
+        sharedHttpClient.reconfigure(1)
+        def second = sharedHttpClient.getHttpClient()
+
+        then:
+        1 * httpClientFactory.buildConnectionManager() >> new PoolingHttpClientConnectionManager()
+        1 * httpClientFactory.buildHttpClient(_, 1) >> httpClient
+        first.is(httpClient)
+        second.is(httpClient)
+        0 * httpClient.close()
+        0 * scheduler._
+    }
+
+    def 'rebuilds the client when the settings change, closing the former one once requests had time to complete'() {
+        given:
+        def oldHttpClient = Mock(CloseableHttpClient)
+        def newHttpClient = Mock(CloseableHttpClient)
+        httpClientFactory.buildConnectionManager() >> { new PoolingHttpClientConnectionManager() }
+        httpClientFactory.buildHttpClient(_, 1) >> oldHttpClient
+        httpClientFactory.buildHttpClient(_, 5) >> newHttpClient
+        Runnable closeOldHttpClient = null
+
+        when:
+        def old = sharedHttpClient.getHttpClient()
+        sharedHttpClient.reconfigure(5)
+
+        then:
+        old.is(oldHttpClient)
+        1 * scheduler.schedule(_ as Runnable, 62L, TimeUnit.SECONDS) >> { args -> closeOldHttpClient = args[0]; null }
+        0 * oldHttpClient.close()
+
+        when:
+        def rebuilt = sharedHttpClient.getHttpClient()
+        closeOldHttpClient.run()
+
+        then:
+        rebuilt.is(newHttpClient)
+        1 * oldHttpClient.close()
+        0 * newHttpClient.close()
+    }
+
+    def 'exposes pool statistics once the client is built'() {
+        given:
+        httpClientFactory.buildConnectionManager() >> { new PoolingHttpClientConnectionManager() }
+        httpClientFactory.buildHttpClient(_, _) >> Mock(CloseableHttpClient)
+
+        expect:
+        sharedHttpClient.poolStats == null
+
+        when:
+        sharedHttpClient.getHttpClient()
+
+        then:
+        sharedHttpClient.poolStats.leased == 0
+    }
+}
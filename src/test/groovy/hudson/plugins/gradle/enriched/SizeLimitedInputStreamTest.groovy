@@ -0,0 +1,35 @@
+package hudson.plugins.gradle.enriched
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+@Subject(SizeLimitedInputStream.class)
+class SizeLimitedInputStreamTest extends Specification {
+
+    def 'reads streams within the limit'() {
+        given:
+        def stream = new SizeLimitedInputStream(new ByteArrayInputStream("0123456789".bytes), 10)
+
+        expect:
+        stream.text == "0123456789"
+    }
+
+    def 'fails once the limit is exceeded and leaves the underlying stream open'() {
+        given:
+        def underlying = Spy(ByteArrayInputStream, constructorArgs: ["0123456789".bytes])
+        def stream = new SizeLimitedInputStream(underlying, 5)
+
+        when:
+        stream.bytes
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Response body exceeds 5 bytes"
+
+        when:
+        stream.close()
+
+        then:
+        0 * underlying.close()
+    }
+}
@@ -0,0 +1,47 @@
+package hudson.plugins.gradle.util
+
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+
+@Unroll
+@Subject(MultiLiteralMatcher)
+class MultiLiteralMatcherTest extends Specification {
+
+    def matcher = MultiLiteralMatcher.of("Publishing build scan...", "Publishing build information...", "build", "ilding")
+
+    def 'finds any literal in #text'(String text, boolean found) {
+        expect:
+        matcher.find(text) == found
+        matcher.find(text.getBytes(StandardCharsets.UTF_8), 0, text.getBytes(StandardCharsets.UTF_8).length) == found
+
+        where:
+        text                                     || found
+        "Publishing build scan..."               || true
+        "> Publishing build information... done" || true
+        "rebuilding"                             || true
+        "buil"                                   || false
+        "buïld"                                  || false
+        "Publishing bu"                          || false
+        ""                                       || false
+    }
+
+    def 'only matches within the given bytes'() {
+        given:
+        def bytes = "xxbuildxx".getBytes(StandardCharsets.US_ASCII)
+
+        expect:
+        matcher.find(bytes, 2, 5)
+        !matcher.find(bytes, 3, 6)
+    }
+
+    def 'rejects non ASCII literals'() {
+        when:
+        MultiLiteralMatcher.of("café")
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}